@@ -40,7 +40,7 @@ public abstract class AbstractGUIApplicator extends Refactoring {
   private IMarker marker;
   protected String name;
   private ITextSelection selection;
-  final List<Tip> tips = new ArrayList<>();
+  final List<Tip> tips = new TipTree();
   private int totalChanges;
 
   /*** Instantiates this class, with message identical to name
@@ -83,7 +83,7 @@ public abstract class AbstractGUIApplicator extends Refactoring {
    * @return a collection of {@link Tip} objects each containing a laconic
    *         tip */
   public final List<Tip> collectSuggesions(final CompilationUnit ¢) {
-    final List<Tip> $ = new ArrayList<>();
+    final List<Tip> $ = new TipTree();
     ¢.accept(makeTipsCollector($));
     return $;
   }
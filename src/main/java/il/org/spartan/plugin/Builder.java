@@ -72,9 +72,12 @@ public final class Builder extends IncrementalProjectBuilder {
   }
 
   private static void addMarkers(final IFile ¢) throws CoreException {
+    Events.file(¢.getName());
+    final Object e = Events.begin(Events.Kind.MARKERS);
     Tips.reset();
     deleteMarkers(¢);
     addMarkers(¢, (CompilationUnit) makeAST.COMPILATION_UNIT.from(¢));
+    Events.end(e);
   }
 
   private static void addMarkers(final IFile f, final CompilationUnit u) throws CoreException {
@@ -94,7 +97,6 @@ public final class Builder extends IncrementalProjectBuilder {
       throws CoreException {
     if (m != null)
       m.beginTask("Checking for spartanization opportunities", IProgressMonitor.UNKNOWN);
-    Toolbox.refresh();
     build(kind);
     if (m != null)
       m.done();
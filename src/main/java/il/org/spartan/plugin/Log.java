@@ -0,0 +1,118 @@
+package il.org.spartan.plugin;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+/** A logging facade for hot paths: messages are built only if their
+ * {@link Level} is on, and are kept in an in-memory ring of the last
+ * {@link #CAPACITY} messages, optionally echoed to {@link System#out}.
+ * <p>
+ * Callers on a per-node path either guard with {@link #on(Level)}, or pass a
+ * non capturing lambda, or method reference, with its argument, as in
+ * <code>Log.trace(x -> "Visit " + x, n)</code>; neither allocates, nor
+ * synchronizes, when the level is off. Only appending to the ring is
+ * synchronized.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class Log {
+  /** Levels of messages, most severe first; a level is on if it is not after
+   * the current one */
+  public enum Level {
+    OFF, ERROR, INFO, DEBUG, TRACE
+  }
+
+  /** Number of messages kept */
+  public static final int CAPACITY = 1 << 10;
+  private static final String[] ring = new String[CAPACITY];
+  private static long appended;
+  private static volatile int threshold = Level.INFO.ordinal();
+  private static volatile boolean echo;
+
+  private Log() {
+    // Static members only
+  }
+
+  /** @param ¢ JD
+   * @return whether messages of this level are kept */
+  public static boolean on(final Level ¢) {
+    return ¢.ordinal() <= threshold;
+  }
+
+  /** Keeps messages of this level and of more severe ones only
+   * @param ¢ JD */
+  public static void level(final Level ¢) {
+    threshold = ¢.ordinal();
+  }
+
+  /** @return the current level */
+  public static Level level() {
+    return Level.values()[threshold];
+  }
+
+  /** @param ¢ whether kept messages are also printed to {@link System#out} */
+  public static void echo(final boolean ¢) {
+    echo = ¢;
+  }
+
+  public static void log(final Level l, final String message) {
+    if (on(l))
+      append(l, message);
+  }
+
+  public static void log(final Level l, final Supplier<String> message) {
+    if (on(l))
+      append(l, message.get());
+  }
+
+  public static <T> void log(final Level l, final Function<T, String> message, final T t) {
+    if (on(l))
+      append(l, message.apply(t));
+  }
+
+  public static void debug(final Supplier<String> message) {
+    log(Level.DEBUG, message);
+  }
+
+  public static <T> void debug(final Function<T, String> message, final T t) {
+    log(Level.DEBUG, message, t);
+  }
+
+  public static void trace(final Supplier<String> message) {
+    log(Level.TRACE, message);
+  }
+
+  public static <T> void trace(final Function<T, String> message, final T t) {
+    log(Level.TRACE, message, t);
+  }
+
+  /** @return the kept messages, oldest first */
+  public static synchronized List<String> recent() {
+    final List<String> $ = new ArrayList<>();
+    for (long ¢ = Math.max(0, appended - CAPACITY); ¢ < appended; ++¢)
+      $.add(ring[(int) (¢ % CAPACITY)]);
+    return $;
+  }
+
+  /** Prints the kept messages, oldest first, and forgets them
+   * @param ¢ JD */
+  public static synchronized void dump(final PrintStream ¢) {
+    for (final String message : recent())
+      ¢.println(message);
+    clear();
+  }
+
+  public static synchronized void clear() {
+    Arrays.fill(ring, null);
+    appended = 0;
+  }
+
+  private static void append(final Level l, final String message) {
+    final String $ = l + ": " + message;
+    synchronized (Log.class) {
+      ring[(int) (appended++ % CAPACITY)] = $;
+    }
+    if (echo)
+      System.out.println(message);
+  }
+}
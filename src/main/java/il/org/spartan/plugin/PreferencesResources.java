@@ -51,12 +51,20 @@ public final class PreferencesResources {
     }
 
     private static TipperGroup find(final Class<? extends TipperCategory> ¢) {
-      for (final TipperGroup $ : TipperGroup.values())
-        if ($.clazz.isAssignableFrom(¢))
-          return $;
-      return null;
+      return groups.get(¢);
     }
 
+    /** The group of each class of tippers, searched for only once for each
+     * class */
+    private static final ClassValue<TipperGroup> groups = new ClassValue<TipperGroup>() {
+      @Override protected TipperGroup computeValue(final Class<?> c) {
+        for (final TipperGroup $ : TipperGroup.values())
+          if ($.clazz.isAssignableFrom(c))
+            return $;
+        return null;
+      }
+    };
+
     private final Class<? extends TipperCategory> clazz;
     final String id;
     final String label;
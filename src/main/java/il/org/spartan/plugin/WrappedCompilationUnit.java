@@ -1,5 +1,6 @@
 package il.org.spartan.plugin;
 
+import java.io.*;
 import java.util.*;
 
 import org.eclipse.jdt.core.*;
@@ -15,6 +16,8 @@ import il.org.spartan.spartanizer.engine.*;
 public class WrappedCompilationUnit {
   public ICompilationUnit descriptor;
   public CompilationUnit compilationUnit;
+  /** The file parsed by {@link #build()}, if there is no {@link #descriptor} */
+  public File file;
 
   /** Instantiates this class
    * @param compilationUnit JD */
@@ -30,9 +33,17 @@ public class WrappedCompilationUnit {
     compilationUnit = cu;
   }
 
+  /** Instantiates this class with a file, which is parsed only when the
+   * instance is built, and may be disposed of afterwards
+   * @param file JD */
+  public WrappedCompilationUnit(final File file) {
+    this.file = file;
+  }
+
   public WrappedCompilationUnit build() {
     if (compilationUnit == null)
-      compilationUnit = (CompilationUnit) Make.COMPILATION_UNIT.parser(descriptor).createAST(nullProgressMonitor);
+      compilationUnit = descriptor == null && file != null ? (CompilationUnit) makeAST.COMPILATION_UNIT.from(file)
+          : (CompilationUnit) Make.COMPILATION_UNIT.parser(descriptor).createAST(nullProgressMonitor);
     return this;
   }
 
@@ -42,7 +53,7 @@ public class WrappedCompilationUnit {
   }
 
   public String name() {
-    return descriptor == null ? null : descriptor.getElementName();
+    return descriptor != null ? descriptor.getElementName() : file == null ? null : file.getName();
   }
 
   /** Factory method
@@ -2,6 +2,8 @@ package il.org.spartan.plugin;
 
 import static il.org.spartan.spartanizer.utils.fault.*;
 
+import java.util.function.*;
+
 /** Our way of dealing with logs, exceptions, NPE, Eclipse bugs, and other
  * unusual situations.
  * @author Yossi Gil
@@ -13,6 +15,10 @@ public enum monitor {
       return info(message);
     }
 
+    @Override boolean debugging() {
+      return true;
+    }
+
     @Override public monitor error(final String message) {
       System.out.println(message);
       return this;
@@ -39,6 +45,10 @@ public enum monitor {
       return info(message);
     }
 
+    @Override boolean debugging() {
+      return true;
+    }
+
     @Override public monitor error(final String message) {
       System.err.println(message);
       System.exit(1);
@@ -52,6 +62,10 @@ public enum monitor {
       return info(message);
     }
 
+    @Override boolean debugging() {
+      return true;
+    }
+
     @Override public monitor error(final String message) {
       throw new RuntimeException(message);
     }
@@ -68,12 +82,13 @@ public enum monitor {
   }
 
   public static void debug(final Object o, final Throwable t) {
-    debug(//
-        "An instance of " + className(o) + //
-            "\n was hit by a " + t.getClass().getSimpleName() + //
-            " exception. This is expected and printed only for the purpose of debugging" + //
-            "\n x = '" + t + "'" + //
-            "\n o = " + o + "'");
+    if (now.debugging())
+      debug(//
+          "An instance of " + className(o) + //
+              "\n was hit by a " + t.getClass().getSimpleName() + //
+              " exception. This is expected and printed only for the purpose of debugging" + //
+              "\n x = '" + t + "'" + //
+              "\n o = " + o + "'");
   }
 
   /** @param string
@@ -82,6 +97,14 @@ public enum monitor {
     return now.debugMessage(message);
   }
 
+  /** Same as {@link #debug(String)}, except that the message is made only if
+   * debug messages are not ignored
+   * @param message JD
+   * @return the current monitor */
+  public static monitor debug(final Supplier<String> message) {
+    return !now.debugging() ? now : now.debugMessage(message.get());
+  }
+
   public static monitor infoIOException(final Exception x, final String message) {
     return now.info(//
         "   Got an exception of type : " + x.getClass().getSimpleName() + //
@@ -142,7 +165,17 @@ public enum monitor {
     return this;
   }
 
-  monitor debugMessage(@SuppressWarnings("unused") final String __) {
+  /** By default, debug messages go to {@link Log}, where they are kept if
+   * its level is {@link Log.Level#DEBUG} or finer
+   * @param message JD
+   * @return <code><b>this</b></code> */
+  monitor debugMessage(final String message) {
+    Log.log(Log.Level.DEBUG, message);
     return this;
   }
+
+  /** @return whether debug messages are used, and therefore worth making */
+  boolean debugging() {
+    return Log.on(Log.Level.DEBUG);
+  }
 }
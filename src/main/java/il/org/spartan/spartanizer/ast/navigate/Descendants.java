@@ -0,0 +1,190 @@
+package il.org.spartan.spartanizer.ast.navigate;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.core.dom.*;
+
+/** Lazy, pre-order iteration over a subtree, with an explicit stack, so that
+ * depth is not limited by the call stack, and iteration may stop at any time.
+ * Nothing is allocated per step: the structural properties of each node class
+ * are looked up once, and kept in a cache.
+ * <p>
+ * Two kinds of trees are supported:
+ * <ol>
+ * <li>{@link #of(ASTNode)}: the tree seen by an {@link ASTVisitor}, i.e., all
+ * structural properties, including lists, but not the tags of a
+ * {@link Javadoc};
+ * <li>{@link #ofRecurser(ASTNode)}: the tree seen by
+ * {@link il.org.spartan.spartanizer.engine.Recurser}, in which the children of
+ * a {@link Block} are its statements, the children of an
+ * {@link InfixExpression} are its operands, and the children of any other node
+ * are its non-list node properties.
+ * </ol>
+ * @author Yossi Gil
+ * @since 2016 */
+public final class Descendants implements Iterator<ASTNode> {
+  private static final StructuralPropertyDescriptor[] NONE = {};
+  private static final Map<Integer, Map<Class<?>, StructuralPropertyDescriptor[]>> all = new ConcurrentHashMap<>();
+  private static final Map<Integer, Map<Class<?>, StructuralPropertyDescriptor[]>> nonList = new ConcurrentHashMap<>();
+
+  /** @param root JD
+   * @return an {@link Iterable} over the root and all nodes beneath it, in the
+   *         order they are visited by an {@link ASTVisitor} */
+  public static Iterable<ASTNode> of(final ASTNode root) {
+    return () -> new Descendants(root, false);
+  }
+
+  /** @param root JD
+   * @return an {@link Iterable} over the root and all nodes beneath it, in the
+   *         order they are visited by
+   *         {@link il.org.spartan.spartanizer.engine.Recurser} */
+  public static Iterable<ASTNode> ofRecurser(final ASTNode root) {
+    return () -> new Descendants(root, true);
+  }
+
+  /** @param ¢ JD
+   * @return all structural properties of the node, from the cache */
+  public static StructuralPropertyDescriptor[] properties(final ASTNode ¢) {
+    return properties(¢, all, false);
+  }
+
+  /** @param ¢ JD
+   * @return the structural properties of the node which hold a single node,
+   *         from the cache */
+  public static StructuralPropertyDescriptor[] nodeProperties(final ASTNode ¢) {
+    return properties(¢, nonList, true);
+  }
+
+  @SuppressWarnings("unchecked") private static StructuralPropertyDescriptor[] properties(final ASTNode n,
+      final Map<Integer, Map<Class<?>, StructuralPropertyDescriptor[]>> cache, final boolean nodesOnly) {
+    if (n instanceof Javadoc && !nodesOnly)
+      return NONE;
+    final Map<Class<?>, StructuralPropertyDescriptor[]> byClass = cache.computeIfAbsent(Integer.valueOf(n.getAST().apiLevel()),
+        __ -> new ConcurrentHashMap<>());
+    final StructuralPropertyDescriptor[] $ = byClass.get(n.getClass());
+    if ($ != null)
+      return $;
+    final List<StructuralPropertyDescriptor> ps = new ArrayList<>();
+    for (final StructuralPropertyDescriptor ¢ : (List<StructuralPropertyDescriptor>) n.structuralPropertiesForType())
+      if (¢.isChildProperty() || !nodesOnly && ¢.isChildListProperty())
+        ps.add(¢);
+    final StructuralPropertyDescriptor[] cached = ps.toArray(new StructuralPropertyDescriptor[ps.size()]);
+    byClass.put(n.getClass(), cached);
+    return cached;
+  }
+
+  /** Number of children of a node in the {@link #ofRecurser(ASTNode)} tree,
+   * computed without allocation
+   * @param ¢ JD
+   * @return number of children */
+  public static int recurserChildren(final ASTNode ¢) {
+    if (¢ instanceof Block)
+      return ((Block) ¢).statements().size();
+    if (¢ instanceof InfixExpression)
+      return 2 + ((InfixExpression) ¢).extendedOperands().size();
+    int $ = 0;
+    for (final StructuralPropertyDescriptor p : nodeProperties(¢))
+      if (¢.getStructuralProperty(p) != null)
+        ++$;
+    return $;
+  }
+
+  private final boolean recurser;
+  /** Nodes on the path from the root to the next node */
+  private ASTNode[] nodes = new ASTNode[32];
+  /** For each node on the stack, the next property (or child) to inspect */
+  private int[] cursors = new int[32];
+  /** For each node on the stack, the next position in a list property */
+  private int[] positions = new int[32];
+  private int depth = -1;
+  private ASTNode next;
+  private ASTNode last;
+
+  private Descendants(final ASTNode root, final boolean recurser) {
+    this.recurser = recurser;
+    next = root;
+  }
+
+  @Override public boolean hasNext() {
+    return next != null;
+  }
+
+  @Override public ASTNode next() {
+    if (next == null)
+      throw new NoSuchElementException();
+    push(last = next);
+    next = advance();
+    return last;
+  }
+
+  /** Prevents descending into the children of the node last returned by
+   * {@link #next()}; they will not be returned. The iterators of
+   * {@link #of(ASTNode)} and {@link #ofRecurser(ASTNode)} are instances of
+   * this class, on which this method may be called. */
+  public void skipChildren() {
+    if (depth >= 0 && nodes[depth] == last) {
+      --depth;
+      next = advance();
+    }
+  }
+
+  private void push(final ASTNode ¢) {
+    if (++depth == nodes.length) {
+      nodes = Arrays.copyOf(nodes, 2 * depth);
+      cursors = Arrays.copyOf(cursors, 2 * depth);
+      positions = Arrays.copyOf(positions, 2 * depth);
+    }
+    nodes[depth] = ¢;
+    cursors[depth] = positions[depth] = 0;
+  }
+
+  private ASTNode advance() {
+    for (; depth >= 0; --depth) {
+      final ASTNode $ = recurser ? nextRecurserChild() : nextChild();
+      if ($ != null)
+        return $;
+    }
+    return null;
+  }
+
+  private ASTNode nextRecurserChild() {
+    final ASTNode n = nodes[depth];
+    if (n instanceof Block) {
+      final List<?> ss = ((Block) n).statements();
+      return cursors[depth] >= ss.size() ? null : (ASTNode) ss.get(cursors[depth]++);
+    }
+    if (n instanceof InfixExpression) {
+      final InfixExpression x = (InfixExpression) n;
+      final int i = cursors[depth]++;
+      return i == 0 ? x.getLeftOperand()
+          : i == 1 ? x.getRightOperand() : i - 2 >= x.extendedOperands().size() ? null : (ASTNode) x.extendedOperands().get(i - 2);
+    }
+    for (final StructuralPropertyDescriptor[] ps = nodeProperties(n); cursors[depth] < ps.length;) {
+      final Object $ = n.getStructuralProperty(ps[cursors[depth]++]);
+      if ($ != null)
+        return (ASTNode) $;
+    }
+    return null;
+  }
+
+  private ASTNode nextChild() {
+    final ASTNode n = nodes[depth];
+    for (final StructuralPropertyDescriptor[] ps = properties(n); cursors[depth] < ps.length;) {
+      final StructuralPropertyDescriptor p = ps[cursors[depth]];
+      final Object o = n.getStructuralProperty(p);
+      if (!p.isChildListProperty()) {
+        ++cursors[depth];
+        if (o != null)
+          return (ASTNode) o;
+        continue;
+      }
+      final List<?> l = (List<?>) o;
+      if (positions[depth] < l.size())
+        return (ASTNode) l.get(positions[depth]++);
+      ++cursors[depth];
+      positions[depth] = 0;
+    }
+    return null;
+  }
+}
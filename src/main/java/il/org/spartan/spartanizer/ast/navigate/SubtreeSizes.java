@@ -0,0 +1,123 @@
+package il.org.spartan.spartanizer.ast.navigate;
+
+import java.lang.ref.*;
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+
+/** A table of the sizes of all subtrees of a {@link CompilationUnit}, filled in
+ * a single traversal and kept as a property of the compilation unit, so that
+ * {@link count#nodes(ASTNode)} costs O(1) on nodes of a parsed tree, rather
+ * than a traversal of the subtree.
+ * <p>
+ * The rewrite engine never changes a parsed tree in place (changes are only
+ * recorded in an {@link org.eclipse.jdt.core.dom.rewrite.ASTRewrite}), so the
+ * table remains valid throughout a round. Code which does change a parsed tree
+ * in place must call {@link #invalidate(ASTNode)} on the changed node, before
+ * the change, which forgets the sizes of the node and of its ancestors; JDT
+ * offers no public way to be notified of such changes, and
+ * {@link AST#modificationCount()} also counts the nodes tippers create, so
+ * that it cannot tell them apart. Nodes which do not belong to a compilation
+ * unit, e.g., those created by tippers, are always measured by a traversal.
+ * <p>
+ * Each thread remembers the table of the tree it measured last, so lookups do
+ * not climb to the root; it is remembered by a weak reference only, so that
+ * threads of a pool do not keep trees they are done with. A table is not
+ * synchronized: like the tree it describes, it may be used by a single thread
+ * at a time.
+ * @author Yossi Gil
+ * @since 2016 */
+public enum SubtreeSizes {
+  ;
+  private static final String AST_PROPERTY_NAME_SIZES = "spartan_subtree_sizes";
+  /** The table each thread used last; the table itself is kept by its
+   * compilation unit */
+  private static final ThreadLocal<Reference<Table>> last = new ThreadLocal<>();
+
+  /** Sizes of the nodes of a compilation unit */
+  static final class Table {
+    final AST ast;
+    final Map<ASTNode, Integer> sizes = new IdentityHashMap<>();
+
+    Table(final CompilationUnit ¢) {
+      ast = ¢.getAST();
+      traverse(¢, sizes);
+    }
+  }
+
+  /** @param ¢ JD
+   * @return the number of nodes in the subtree rooted at the parameter */
+  public static int of(final ASTNode ¢) {
+    final Reference<Table> r = last.get();
+    final Table t = r == null ? null : r.get();
+    if (t != null && t.ast == ¢.getAST()) {
+      final Integer $ = t.sizes.get(¢);
+      if ($ != null)
+        return $.intValue();
+    }
+    final Table table = table(¢);
+    if (table == null)
+      return traverse(¢, null);
+    if (table != t)
+      last.set(new WeakReference<>(table));
+    final Integer $ = table.sizes.get(¢);
+    return $ != null ? $.intValue() : traverse(¢, table.sizes);
+  }
+
+  /** Forget the sizes of a node which is about to be changed in place, and of
+   * all of its ancestors
+   * @param n JD */
+  public static void invalidate(final ASTNode n) {
+    final Table t = (Table) root(n).getProperty(AST_PROPERTY_NAME_SIZES);
+    if (t != null)
+      for (ASTNode ¢ = n; ¢ != null; ¢ = ¢.getParent())
+        t.sizes.remove(¢);
+  }
+
+  private static ASTNode root(final ASTNode n) {
+    ASTNode $ = n;
+    while ($.getParent() != null)
+      $ = $.getParent();
+    return $;
+  }
+
+  /** @param n JD
+   * @return the table of the compilation unit to which the parameter belongs,
+   *         filled in a single pass on first use, or <code><b>null</b></code>
+   *         if it does not belong to a compilation unit */
+  private static Table table(final ASTNode n) {
+    final ASTNode root = root(n);
+    if (!(root instanceof CompilationUnit))
+      return null;
+    final Table $ = (Table) root.getProperty(AST_PROPERTY_NAME_SIZES);
+    if ($ != null)
+      return $;
+    final Table fresh = new Table((CompilationUnit) root);
+    root.setProperty(AST_PROPERTY_NAME_SIZES, fresh);
+    return fresh;
+  }
+
+  /** A single postorder pass over a subtree, which records, if a table is
+   * given, the sizes of all nodes in it
+   * @param root JD
+   * @param table where sizes are recorded, or <code><b>null</b></code>
+   * @return the number of nodes in the subtree */
+  static int traverse(final ASTNode root, final Map<ASTNode, Integer> table) {
+    final int[] $ = new int[1];
+    root.accept(new ASTVisitor() {
+      final Deque<Integer> starts = new ArrayDeque<>();
+
+      @Override public void preVisit(@SuppressWarnings("unused") final ASTNode __) {
+        if (table != null)
+          starts.push(Integer.valueOf($[0]));
+        ++$[0];
+      }
+
+      @Override public void postVisit(final ASTNode ¢) {
+        if (table != null)
+          table.put(¢, Integer.valueOf($[0] - starts.pop().intValue()));
+      }
+    });
+    return $[0];
+  }
+}
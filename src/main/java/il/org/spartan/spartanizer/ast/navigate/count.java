@@ -69,17 +69,12 @@ public interface count {
     return $.inner;
   }
 
-  /** Counts the number of nodes in a tree rooted at a given node
+  /** Counts the number of nodes in a tree rooted at a given node; constant
+   * time for nodes of a parsed compilation unit, see {@link SubtreeSizes}
    * @param n JD
    * @return Number of abstract syntax tree nodes under the parameter. */
   static int nodes(final ASTNode root) {
-    final AtomicInteger $ = new AtomicInteger();
-    root.accept(new ASTVisitor() {
-      @Override public void preVisit(@SuppressWarnings("unused") final ASTNode __) {
-        $.getAndIncrement();
-      }
-    });
-    return $.get();
+    return SubtreeSizes.of(root);
   }
 
   /** Counts the number of nodes in a tree rooted at a given node
@@ -65,17 +65,15 @@ public interface hop {
   }
 
   /** @param root the node whose children we return
-   * @return A list containing all the nodes in the given root'¢ sub tree */
+   * @return A list containing all the nodes in the given root'¢ sub tree; use
+   *         {@link Descendants#of(ASTNode)} to iterate over them lazily */
   static List<ASTNode> descendants(final ASTNode root) {
     if (root == null)
       return null;
     final List<ASTNode> $ = new ArrayList<>();
-    root.accept(new ASTVisitor() {
-      @Override public void preVisit(final ASTNode ¢) {
+    for (final ASTNode ¢ : Descendants.of(root))
+      if (¢ != root)
         $.add(¢);
-      }
-    });
-    $.remove(0);
     return $;
   }
 
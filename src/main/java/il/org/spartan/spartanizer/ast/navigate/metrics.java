@@ -38,17 +38,13 @@ public interface metrics {
 
   /** @param n JD
    * @return The total number of distinct kind of nodes in the AST */
-  @SuppressWarnings("boxing") static int dexterity(final ASTNode n) {
+  static int dexterity(final ASTNode n) {
     if (n == null)
       return 0;
-    final Recurser<Integer> recurse = new Recurser<>(n, 0);
-    final Set<Integer> nodesTypeSet = new HashSet<>();
-    return recurse.preVisit((x) -> {
-      if (nodesTypeSet.contains(x.getRoot().getNodeType()))
-        return x.getCurrent();
-      nodesTypeSet.add(x.getRoot().getNodeType());
-      return x.getCurrent() + 1;
-    });
+    final BitSet $ = new BitSet();
+    for (final ASTNode ¢ : Descendants.ofRecurser(n))
+      $.set(¢.getNodeType());
+    return $.cardinality();
   }
 
   /** @param pattern JD
@@ -80,10 +76,13 @@ public interface metrics {
 
   /** @param n JD
    * @return The total number of internal nodes in the AST */
-  @SuppressWarnings("boxing") static int internals(final ASTNode n) {
-    return n == null ? 0 : new Recurser<>(n, 0).preVisit((x) -> {
-      return Recurser.children(x.getRoot()).isEmpty() ? x.getCurrent() : x.getCurrent() + 1;
-    });
+  static int internals(final ASTNode n) {
+    int $ = 0;
+    if (n != null)
+      for (final ASTNode ¢ : Descendants.ofRecurser(n))
+        if (Descendants.recurserChildren(¢) != 0)
+          ++$;
+    return $;
   }
 
   /** @param pattern JD
@@ -127,8 +126,12 @@ public interface metrics {
 
   /** @param n JD
    * @return The total number of nodes in the AST */
-  @SuppressWarnings("boxing") static int nodes(final ASTNode n) {
-    return n == null ? 0 : new Recurser<>(n, 0).preVisit((x) -> (1 + x.getCurrent()));
+  static int nodes(final ASTNode n) {
+    int $ = 0;
+    if (n != null)
+      for (@SuppressWarnings("unused") final ASTNode __ : Descendants.ofRecurser(n))
+        ++$;
+    return $;
   }
 
   static int size(final ASTNode... ns) {
@@ -281,11 +281,10 @@ public enum step {
     return ¢.getLeftOperand();
   }
 
-  @SuppressWarnings("rawtypes") public static List<ASTNode> marchingList(final ASTNode ¢) {
+  public static List<ASTNode> marchingList(final ASTNode ¢) {
     final List<ASTNode> $ = new ArrayList<>();
-    final List lst = ¢.structuralPropertiesForType();
-    for (final Object s : lst) {
-      final Object child = ¢.getStructuralProperty((StructuralPropertyDescriptor) s);
+    for (final StructuralPropertyDescriptor p : Descendants.nodeProperties(¢)) {
+      final Object child = ¢.getStructuralProperty(p);
       if (iz.astNode(child))
         $.add(az.astNode(child));
     }
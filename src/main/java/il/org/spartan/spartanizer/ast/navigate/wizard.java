@@ -101,6 +101,14 @@ public interface wizard {
   final NullProgressMonitor nullProgressMonitor = new NullProgressMonitor();
   final PrefixExpression.Operator PLUS1 = PrefixExpression.Operator.PLUS;
   final InfixExpression.Operator PLUS2 = InfixExpression.Operator.PLUS;
+  /** Most recently used fragments, parsed by {@link #template(String)} */
+  final Map<String, ASTNode> templates = new LinkedHashMap<String, ASTNode>(16, 0.75f, true) {
+    static final long serialVersionUID = 1L;
+
+    @Override protected boolean removeEldestEntry(@SuppressWarnings("unused") final Map.Entry<String, ASTNode> __) {
+      return size() > 256;
+    }
+  };
   final Set<String> valueTypes = new LinkedHashSet<String>(boxedTypes) {
     static final long serialVersionUID = 1L;
     {
@@ -171,6 +179,24 @@ public interface wizard {
     return null;
   }
 
+  /** Same as {@link #ast(String)}, except that fragments parsed recently are
+   * not parsed again; the returned tree is shared, and must not be changed, nor
+   * used in a rewrite.
+   * @param p string to convert
+   * @return AST of the parameter, shared with other callers */
+  static ASTNode template(final String p) {
+    synchronized (templates) {
+      final ASTNode $ = templates.get(p);
+      if ($ != null)
+        return $;
+    }
+    final ASTNode $ = ast(p);
+    synchronized (templates) {
+      templates.put(p, $);
+    }
+    return $;
+  }
+
   static String body(final ASTNode ¢) {
     return tide.clean(¢ + "");
   }
@@ -1,8 +1,12 @@
 package il.org.spartan.spartanizer.cmdline;
 
 import static il.org.spartan.tide.*;
+import static java.nio.charset.StandardCharsets.*;
 
 import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
 
 import org.eclipse.jdt.core.dom.*;
 
@@ -15,6 +19,14 @@ import il.org.spartan.spartanizer.engine.*;
 import il.org.spartan.utils.*;
 
 /** Scans files named by folder, ignore test files, and collect statistics.
+ * <p>
+ * A project may be split into shards, processed by separate JVMs: the
+ * <code>.java</code> files of the project are listed, in order, in a
+ * manifest, and each shard processes a contiguous part of it, appending, for
+ * each file it completes, one JSON line with what was found in it; this file
+ * is also the checkpoint of the shard, from which <code>--resume</code>
+ * continues. Merging replays the lines of all shards, in order, into the
+ * usual outputs, which are thus the same as those of a single run.
  * @author Yossi Gil
  * @author Matteo Orru'
  * @year 2016 */
@@ -25,13 +37,40 @@ public final class BatchSpartanizer {
   private static boolean defaultDir;
   private static String outputDir;
   private static String inputDir;
+  private static String cacheDir;
+  private static ResultCache cache;
+  /** Budget of each file, in milliseconds; 0 for none */
+  private static long fileBudget;
+  /** Budget of each call to a tipper, in milliseconds; 0 for none */
+  private static long tipperBudget;
+  /** Number of child JVMs to split each project among; 0 for none */
+  private static int shards;
+  /** The shard processed by this JVM, and the number of shards, if it is a
+   * child */
+  private static int shard, of;
+  /** Number of shards to merge, without processing anything */
+  private static int merge;
+  /** Whether shards skip the files their checkpoint records as done */
+  private static boolean resume;
+  /** Whether to write a unified diff of each changed type, instead of the
+   * text of all types, before and after */
+  private static boolean diffs;
+  /** Whether to compress the diffs */
+  private static boolean gzip;
+  /** The project processed by this JVM, and its name, if it is a child */
+  private static String projectPath, projectName;
 
   public static void main(final String[] args) {
+    reset();
     if (args.length == 0)
       printHelpPrompt();
     else {
       parseCommandLineArgs(args);
-      if (inputDir != null && outputDir != null) {
+      if (cacheDir != null)
+        cache = ResultCache.in(cacheDir, interactiveSpartanizer.toolbox.fingerprint() + (diffs ? " diff" : ""));
+      if (projectPath != null && outputDir != null)
+        new BatchSpartanizer(projectPath, projectName).fire();
+      else if (inputDir != null && outputDir != null) {
         final File input = new File(inputDir);
         if (!input.isDirectory()) {
           System.out.println("Analyzing single file: " + input.getAbsolutePath());
@@ -67,9 +106,30 @@ public final class BatchSpartanizer {
     System.out.println("  -d       default directory: use the current directory for the analysis");
     System.out.println("  -o       output directory: here go the results of the analysis");
     System.out.println("  -i       input directory: place here the projects that you want to analyze.");
+    System.out.println("  -c       cache directory: reuse results of files which did not change since an earlier run");
+    System.out.println("  -t       seconds a single file may take; the rest of a file which takes longer is skipped (0: no limit)");
+    System.out.println("  -T       milliseconds a single call to a tipper may take (0: no limit)");
+    System.out.println("  --shards N   split each project among N child JVMs, and merge their outputs");
+    System.out.println("  --shard I/N  process only shard I (counting from 0) of N, e.g., on another machine");
+    System.out.println("  --merge N    merge the outputs of N shards, without processing anything");
+    System.out.println("  --resume     skip files which a shard has already completed");
+    System.out.println("  --diff       write a unified diff of each changed type, instead of all types before and after");
+    System.out.println("  --gzip       compress the diffs");
     System.out.println("");
   }
 
+  /** Restores the defaults of all options, which would otherwise remain from
+   * an earlier call to {@link #main(String[])} in the same JVM */
+  private static void reset() {
+    defaultDir = resume = diffs = gzip = false;
+    outputDir = inputDir = cacheDir = projectPath = projectName = null;
+    cache = null;
+    fileBudget = 5 * 60 * 1000;
+    tipperBudget = 60 * 1000;
+    shards = of = merge = 0;
+    shard = -1;
+  }
+
   /** @param args */
   private static void parseCommandLineArgs(final String[] args) {
     for (int ¢ = 0; ¢ < args.length;)
@@ -81,6 +141,39 @@ public final class BatchSpartanizer {
         inputDir = args[¢ + 1];
         // System.out.println("InputDir: " + inputDir);
         ¢ += 2;
+      } else if ("-c".equals(args[¢])) {
+        cacheDir = args[¢ + 1];
+        ¢ += 2;
+      } else if ("-t".equals(args[¢])) {
+        fileBudget = 1000 * Long.parseLong(args[¢ + 1]);
+        ¢ += 2;
+      } else if ("-T".equals(args[¢])) {
+        tipperBudget = Long.parseLong(args[¢ + 1]);
+        ¢ += 2;
+      } else if ("--shards".equals(args[¢])) {
+        shards = Integer.parseInt(args[¢ + 1]);
+        ¢ += 2;
+      } else if ("--shard".equals(args[¢])) {
+        final String[] ss = args[¢ + 1].split("/");
+        shard = Integer.parseInt(ss[0]);
+        of = Integer.parseInt(ss[1]);
+        ¢ += 2;
+      } else if ("--merge".equals(args[¢])) {
+        merge = Integer.parseInt(args[¢ + 1]);
+        ¢ += 2;
+      } else if ("--resume".equals(args[¢])) {
+        resume = true;
+        ++¢;
+      } else if ("--diff".equals(args[¢])) {
+        diffs = true;
+        ++¢;
+      } else if ("--gzip".equals(args[¢])) {
+        gzip = true;
+        ++¢;
+      } else if ("-p".equals(args[¢])) {
+        projectPath = args[¢ + 1];
+        projectName = args[¢ + 2];
+        ¢ += 3;
       } else if ("-d".equals(args[¢])) {
         inputDir = ".";
         ¢ += 1;
@@ -92,13 +185,23 @@ public final class BatchSpartanizer {
   }
 
   private int classesDone;
+  /** What was found for each type of the current file, for the cache */
+  private final List<Map<?, ?>> records = new ArrayList<>();
+  /** Why the last file was not completed, if its deadline expired */
+  private Deadline.Expired expired;
   private final String inputPath;
   private final String beforeFileName;
   private final String afterFileName;
+  private final String diffFileName;
   private PrintWriter befores;
   private PrintWriter afters;
+  private PrintWriter diff;
   private CSVStatistics report;
   private final String reportFileName;
+  private final RunStatistics statistics = new RunStatistics();
+  /** Where {@link RunStatistics#write(String)} writes */
+  private final String statisticsPrefix;
+  private final String name;
 
   private BatchSpartanizer(final String path) {
     this(path, system.folder2File(path));
@@ -108,35 +211,84 @@ public final class BatchSpartanizer {
     this.inputPath = inputPath;
     beforeFileName = folder + outputDir + "/" + name + ".before.java";
     afterFileName = folder + outputDir + "/" + name + ".after.java";
+    diffFileName = folder + outputDir + "/" + name + ".diff" + (gzip ? ".gz" : "");
     reportFileName = folder + outputDir + "/" + name + ".CSV";
+    statisticsPrefix = folder + outputDir + "/" + name;
+    this.name = name;
     final File dir = new File(folder + outputDir);
     if (!dir.exists())
       System.out.println(dir.mkdir());
   }
 
   boolean collect(final AbstractTypeDeclaration in) {
-    final int length = in.getLength();
-    final int tokens = metrics.tokens(in + "");
-    final int nodes = count.nodes(in);
-    final int body = metrics.bodySize(in);
-    final int tide = clean(in + "").length();
-    final int essence = code.essence(in + "").length();
     final String out = interactiveSpartanizer.fixedPoint(in + "");
-    final int length2 = out.length();
-    final int tokens2 = metrics.tokens(out);
-    final int tide2 = clean(out + "").length();
-    final int essence2 = code.essence(out + "").length();
-    final int wordCount = code.wc(code.essence(out + ""));
     final ASTNode from = makeAST.COMPILATION_UNIT.from(out);
-    final int nodes2 = count.nodes(from);
-    final int body2 = metrics.bodySize(from);
-    System.err.println(++classesDone + " " + extract.category(in) + " " + extract.name(in));
-    befores.print(in);
-    afters.print(out);
+    RunStatistics.lap(RunStatistics.Phase.PARSE);
+    final Map<String, Object> $ = new LinkedHashMap<>();
+    $.put("category", extract.category(in));
+    $.put("name", extract.name(in));
+    if (!diffs) {
+      $.put("before", in + "");
+      $.put("after", out);
+    } else if (!out.equals(in + ""))
+      $.put("diff", UnifiedDiff.of(extract.name(in), in + "", out));
+    $.put("length", Integer.valueOf(in.getLength()));
+    $.put("tokens", Integer.valueOf(metrics.tokens(in + "")));
+    $.put("nodes", Integer.valueOf(count.nodes(in)));
+    $.put("body", Integer.valueOf(metrics.bodySize(in)));
+    $.put("tide", Integer.valueOf(clean(in + "").length()));
+    $.put("essence", Integer.valueOf(code.essence(in + "").length()));
+    $.put("length2", Integer.valueOf(out.length()));
+    $.put("tokens2", Integer.valueOf(metrics.tokens(out)));
+    $.put("nodes2", Integer.valueOf(count.nodes(from)));
+    $.put("body2", Integer.valueOf(metrics.bodySize(from)));
+    $.put("tide2", Integer.valueOf(clean(out + "").length()));
+    $.put("essence2", Integer.valueOf(code.essence(out + "").length()));
+    $.put("words", Integer.valueOf(code.wc(code.essence(out + ""))));
+    RunStatistics.nodes(integer($, "nodes"));
+    RunStatistics.lap(RunStatistics.Phase.METRICS);
+    record($);
+    RunStatistics.lap(RunStatistics.Phase.WRITE);
+    return false;
+  }
+
+  /** A shard only records what was found; otherwise, it is also reported
+   * @param r what was found for one type */
+  private void record(final Map<?, ?> r) {
+    records.add(r);
+    if (report != null)
+      report(r);
+  }
+
+  /** Prints, and adds to the report, what was found for one type
+   * @param r as made by {@link #collect(AbstractTypeDeclaration)}, or as read
+   *        from the cache */
+  private void report(final Map<?, ?> r) {
+    final int length = integer(r, "length");
+    final int tokens = integer(r, "tokens");
+    final int nodes = integer(r, "nodes");
+    final int body = integer(r, "body");
+    final int tide = integer(r, "tide");
+    final int essence = integer(r, "essence");
+    final int length2 = integer(r, "length2");
+    final int tokens2 = integer(r, "tokens2");
+    final int tide2 = integer(r, "tide2");
+    final int essence2 = integer(r, "essence2");
+    final int wordCount = integer(r, "words");
+    final int nodes2 = integer(r, "nodes2");
+    final int body2 = integer(r, "body2");
+    System.err.println(++classesDone + " " + r.get("category") + " " + r.get("name"));
+    if (diff != null) {
+      if (r.get("diff") != null)
+        diff.print(r.get("diff"));
+    } else {
+      befores.print(r.get("before"));
+      afters.print(r.get("after"));
+    }
     report.summaryFileName();
     report//
-        .put("TipperCategory", extract.category(in))//
-        .put("Name", extract.name(in))//
+        .put("TipperCategory", r.get("category") + "")//
+        .put("Name", r.get("name") + "")//
         .put("Nodes1", nodes)//
         .put("Nodes2", nodes2)//
         .put("Δ Nodes", nodes - nodes2)//
@@ -174,7 +326,10 @@ public final class BatchSpartanizer {
         .put("R(B/S)", system.ratio(nodes, body)) //
     ;
     report.nl();
-    return false;
+  }
+
+  private static int integer(final Map<?, ?> r, final String key) {
+    return ((Number) r.get(key)).intValue();
   }
 
   void collect(final CompilationUnit u) {
@@ -193,23 +348,61 @@ public final class BatchSpartanizer {
     });
   }
 
-  void collect(final File f) {
-    if (!system.isTestFile(f))
-      try {
-        collect(FileUtils.read(f));
-      } catch (final IOException e) {
-        monitor.infoIOException(e, "File = " + f);
-      }
+  /** @param f JD
+   * @return whether the file was read, and processed, fully or until its
+   *         deadline expired */
+  boolean collect(final File f) {
+    if (system.isTestFile(f))
+      return false;
+    statistics.begin(f.getPath());
+    Deadline.start(fileBudget, tipperBudget);
+    expired = null;
+    try {
+      final String javaCode = FileUtils.read(f);
+      RunStatistics.lap(RunStatistics.Phase.READ);
+      collect(javaCode);
+      return true;
+    } catch (final IOException e) {
+      monitor.infoIOException(e, "File = " + f);
+      return false;
+    } catch (final Deadline.Expired x) {
+      System.err.println("Skipping the rest of " + f + ": " + x.getMessage());
+      statistics.expired(f.getPath(), expired = x);
+      return true;
+    } finally {
+      Deadline.stop();
+      statistics.end();
+    }
   }
 
   void collect(final String javaCode) {
-    collect((CompilationUnit) makeAST.COMPILATION_UNIT.from(javaCode));
+    records.clear();
+    final String cached = cache == null ? null : cache.get(javaCode);
+    if (cached != null) {
+      for (final Object ¢ : (List<?>) json.parse(cached))
+        record((Map<?, ?>) ¢);
+      RunStatistics.lap(RunStatistics.Phase.WRITE);
+      return;
+    }
+    final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT.from(javaCode);
+    RunStatistics.lap(RunStatistics.Phase.PARSE);
+    collect(u);
+    if (cache == null)
+      return;
+    cache.put(javaCode, json.write(records));
+    RunStatistics.lap(RunStatistics.Phase.WRITE);
   }
 
   void fire() {
+    if (shard >= 0) {
+      runShard(shard, of);
+      return;
+    }
     collect();
-    runEssence();
-    runWordCount();
+    if (!diffs) {
+      runEssence();
+      runWordCount();
+    }
     System.err.printf("\n Our batch applicator had %d tippers dispersed over %d hooks\n", //
         box.it(interactiveSpartanizer.toolbox.tippersCount()), //
         box.it(interactiveSpartanizer.toolbox.hooksCount())//
@@ -238,28 +431,174 @@ public final class BatchSpartanizer {
   private void collect() {
     System.err.printf(
         "Input path=%s\n" + //
-            "Collective before path=%s\n" + //
-            "Collective after path=%s\n" + //
+            (diffs ? "Diff path=%s\n" : "Collective before path=%s\n" + //
+                "Collective after path=%s\n") + //
             "\n", //
         inputPath, //
-        beforeFileName, //
+        diffs ? diffFileName : beforeFileName, //
         afterFileName);
-    try (PrintWriter b = new PrintWriter(new FileWriter(beforeFileName)); //
-        PrintWriter a = new PrintWriter(new FileWriter(afterFileName))) {
+    try (PrintWriter b = diffs ? null : new PrintWriter(new FileWriter(beforeFileName)); //
+        PrintWriter a = diffs ? null : new PrintWriter(new FileWriter(afterFileName)); //
+        PrintWriter d = !diffs ? null : UnifiedDiff.writer(diffFileName, gzip)) {
       befores = b;
       afters = a;
+      diff = d;
       report = new CSVStatistics(reportFileName, "property");
-      for (final File ¢ : new FilesGenerator(".java").from(inputPath))
-        collect(¢);
+      if (shards > 0) {
+        runShards();
+        merge(shards);
+      } else if (merge > 0)
+        merge(merge);
+      else
+        for (final File ¢ : new FilesGenerator(".java").from(inputPath))
+          collect(¢);
     } catch (final IOException x) {
       x.printStackTrace();
       System.err.println(classesDone + " files processed; processing of " + inputPath + " failed for some I/O reason");
     }
-    applyEssenceCommandLine();
+    if (!diffs)
+      applyEssenceCommandLine();
     System.err.print("\n Done: " + classesDone + " files processed.");
+    if (cache != null)
+      System.err.print("\n Results " + cache.summary());
+    System.err.print("\n" + statistics.summary());
+    statistics.write(statisticsPrefix);
     System.err.print("\n Summary: " + report.close());
   }
 
+  /** @return the <code>.java</code> files of the project, other than test
+   *         files, in the order of the manifest; the manifest is made afresh
+   *         by each run, and is sorted, so that all shards of a run agree on
+   *         it, but a run which resumes reads the manifest of the run it
+   *         continues, so that the files of its shards do not move
+   * @throws IOException */
+  List<File> manifest() throws IOException {
+    final Path p = Paths.get(folder + outputDir, name + ".manifest");
+    final List<File> $ = new ArrayList<>();
+    if (resume && Files.exists(p)) {
+      for (final String ¢ : Files.readAllLines(p, UTF_8))
+        $.add(new File(¢));
+      return $;
+    }
+    for (final File ¢ : new FilesGenerator(".java").from(inputPath))
+      if (!system.isTestFile(¢))
+        $.add(¢);
+    $.sort(Comparator.comparing(File::getPath));
+    final Path temporary = Files.createTempFile(p.getParent(), ".", ".tmp");
+    final List<String> lines = new ArrayList<>();
+    for (final File ¢ : $)
+      lines.add(¢.getPath());
+    Files.write(temporary, lines, UTF_8);
+    Files.move(temporary, p, StandardCopyOption.REPLACE_EXISTING);
+    return $;
+  }
+
+  Path shardPath(final int i) {
+    return Paths.get(folder + outputDir, name + ".shard-" + i + ".jsonl");
+  }
+
+  /** Processes the files of one shard, appending a line for each to its
+   * checkpoint
+   * @param i the shard, counting from 0
+   * @param n number of shards */
+  void runShard(final int i, final int n) {
+    final Path p = shardPath(i);
+    try {
+      final List<File> fs = manifest();
+      final Set<String> done = new HashSet<>();
+      if (resume)
+        for (final Map<?, ?> ¢ : checkpoint(p))
+          done.add(¢.get("file") + "");
+      try (Writer w = Files.newBufferedWriter(p, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          resume ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+        for (final File f : fs.subList(fs.size() * i / n, fs.size() * (i + 1) / n)) {
+          if (done.contains(f.getPath()) || !collect(f))
+            continue;
+          final Map<String, Object> line = new LinkedHashMap<>();
+          line.put("file", f.getPath());
+          line.put("records", records);
+          if (expired != null)
+            line.put("expired", expired.getMessage());
+          w.write(json.write(line) + "\n");
+          w.flush();
+        }
+      }
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "Shard = " + p);
+    }
+    System.err.print("\n Shard " + i + "/" + n + ": " + statistics.summary());
+    statistics.write(statisticsPrefix + ".shard-" + i);
+  }
+
+  /** @param p a checkpoint of a shard
+   * @return the lines of the checkpoint, each describing a completed file; a
+   *         partial last line, left by a crash, is removed from the file
+   * @throws IOException */
+  static List<Map<?, ?>> checkpoint(final Path p) throws IOException {
+    final List<Map<?, ?>> $ = new ArrayList<>();
+    if (!Files.exists(p))
+      return $;
+    final String s = new String(Files.readAllBytes(p), UTF_8);
+    final int end = s.lastIndexOf('\n') + 1;
+    if (end < s.length())
+      try (FileChannel c = FileChannel.open(p, StandardOpenOption.WRITE)) {
+        c.truncate(s.substring(0, end).getBytes(UTF_8).length);
+      }
+    for (final String ¢ : s.substring(0, end).split("\n"))
+      if (!¢.isEmpty())
+        $.add((Map<?, ?>) json.parse(¢));
+    return $;
+  }
+
+  /** Runs each shard of the project in a child JVM, and waits for all */
+  private void runShards() throws IOException {
+    final List<Process> ps = new ArrayList<>();
+    for (int ¢ = 0; ¢ < shards; ++¢)
+      ps.add(new ProcessBuilder(shardCommand(¢)).inheritIO().start());
+    for (int ¢ = 0; ¢ < shards; ++¢)
+      try {
+        final int exit = ps.get(¢).waitFor();
+        if (exit != 0)
+          System.err.println("Shard " + ¢ + " failed with exit code " + exit + "; run again with --resume to complete it");
+      } catch (final InterruptedException x) {
+        monitor.logCancellationRequest(this, x);
+        Thread.currentThread().interrupt();
+        return;
+      }
+  }
+
+  private List<String> shardCommand(final int i) {
+    final List<String> $ = new ArrayList<>(Arrays.asList(new File(System.getProperty("java.home"), "bin/java") + "", "-cp",
+        System.getProperty("java.class.path"), BatchSpartanizer.class.getName(), "-o", outputDir, "-p", inputPath, name, "--shard", i + "/" + shards,
+        "-t", fileBudget / 1000 + "", "-T", tipperBudget + ""));
+    if (cacheDir != null)
+      $.addAll(Arrays.asList("-c", cacheDir));
+    if (resume)
+      $.add("--resume");
+    if (diffs)
+      $.add("--diff");
+    return $;
+  }
+
+  /** Replays the checkpoints of the shards, in order, into the outputs
+   * @param n number of shards
+   * @throws IOException */
+  private void merge(final int n) throws IOException {
+    for (int i = 0; i < n; ++i) {
+      final Path p = shardPath(i);
+      if (!Files.exists(p)) {
+        System.err.println("Shard " + i + " has no output at " + p);
+        continue;
+      }
+      for (final Map<?, ?> line : checkpoint(p)) {
+        for (final Object ¢ : (List<?>) line.get("records"))
+          report((Map<?, ?>) ¢);
+        if (line.get("expired") != null)
+          System.err.println("Partial result of " + line.get("file") + ": " + line.get("expired"));
+      }
+    }
+  }
+
   private void runWordCount() {
     system.bash("wc " + separate.these(beforeFileName, afterFileName, system.essenced(beforeFileName), system.essenced(afterFileName)));
   }
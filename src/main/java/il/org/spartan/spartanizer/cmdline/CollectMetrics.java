@@ -23,9 +23,12 @@ public final class CollectMetrics {
   private static String OUTPUT_Tips = "/tmp/tips.csv";
   private static CSVStatistics output = init(OUTPUT, "property");
   private static CSVStatistics Tips = init(OUTPUT_Tips, "tips");
+  private static final RunStatistics statistics = new RunStatistics();
 
   public static void main(final String[] where) {
     go(where.length != 0 ? where : new String[] { "." });
+    System.err.print(statistics.summary());
+    statistics.write(OUTPUT.replaceFirst("\\.csv$", ""));
     System.err.println("Your output should be here: " + output.close());
   }
 
@@ -44,25 +47,37 @@ public final class CollectMetrics {
   }
 
   private static void go(final File f) {
+    statistics.begin(f.getPath());
     try {
       // This line is going to give you trouble if you process class by class.
       output.put("File", f.getName());
       Tips.put("File", f.getName());
-      go(FileUtils.read(f));
+      final String javaCode = FileUtils.read(f);
+      RunStatistics.lap(RunStatistics.Phase.READ);
+      go(javaCode);
     } catch (final IOException e) {
       System.err.println(e.getMessage());
+    } finally {
+      statistics.end();
     }
   }
 
   private static void go(final String javaCode) {
     output.put("Characters", javaCode.length());
     final CompilationUnit before = (CompilationUnit) makeAST.COMPILATION_UNIT.from(javaCode);
+    RunStatistics.lap(RunStatistics.Phase.PARSE);
     report("Before-", before);
+    RunStatistics.nodes(count.nodes(before));
+    RunStatistics.lap(RunStatistics.Phase.METRICS);
     collectTips(javaCode, before);
+    RunStatistics.lap(RunStatistics.Phase.TIP);
     final CompilationUnit after = spartanize(javaCode);
     assert after != null;
+    RunStatistics.lap(RunStatistics.Phase.PARSE);
     report("After-", after);
+    RunStatistics.lap(RunStatistics.Phase.METRICS);
     output.nl();
+    RunStatistics.lap(RunStatistics.Phase.WRITE);
   }
 
   private static void go(final String[] where) {
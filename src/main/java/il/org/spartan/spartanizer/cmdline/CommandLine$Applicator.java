@@ -19,6 +19,8 @@ import il.org.spartan.spartanizer.tipping.*;
 public class CommandLine$Applicator {
   static List<Class<? extends BodyDeclaration>> selectedNodeTypes = as.list(MethodDeclaration.class);
   public Toolbox toolbox;
+  /** Fixed points of earlier runs, or <code><b>null</b></code> */
+  ResultCache cache;
   public int tippersAppliedOnCurrentObject;
   protected PrintWriter afters;
   protected PrintWriter befores;
@@ -40,11 +42,16 @@ public class CommandLine$Applicator {
 
   boolean go(final ASTNode input) {
     tippersAppliedOnCurrentObject = 0;
-    final String output = fixedPoint(input);
-    final ASTNode outputASTNode = makeAST.CLASS_BODY_DECLARATIONS.from(output);
-    Reports.printFile(input + "", "before");
-    Reports.printFile(output, "after");
-    computeMetrics(input, outputASTNode);
+    final String in = input + "";
+    final Document d = new Document(in);
+    final ASTNode output = fixedPoint(in, d);
+    if (Reports.hasFile("diff"))
+      Reports.printDiff(extract.name(input), in, d.get(), "diff");
+    else {
+      Reports.printFile(in, "before");
+      Reports.printFile(d.get(), "after");
+    }
+    computeMetrics(input, output);
     return false;
   }
 
@@ -126,23 +133,44 @@ public class CommandLine$Applicator {
   // .put("R(E/T)" + id, system.ratio(nm.tide(), nm.essence())) //
   // .put("R(B/S)" + id, system.ratio(nm.nodes(), nm.body())); //
   // }
-  String fixedPoint(final ASTNode ¢) {
-    return fixedPoint(¢ + "");
+  /** @param input text of the body declarations
+   * @param d a document holding this text, replaced by its fixed point
+   * @return the parsed fixed point, taken from the cache if possible */
+  ASTNode fixedPoint(final String input, final Document d) {
+    final String cached = cache == null ? null : cache.get(input);
+    if (cached != null) {
+      d.set(cached);
+      return makeAST.CLASS_BODY_DECLARATIONS.from(cached);
+    }
+    final ASTNode $ = fixedPoint(d);
+    if (cache != null)
+      cache.put(input, d.get());
+    return $;
   }
 
   public String fixedPoint(final String from) {
-    for (final Document $ = new Document(from);;) {
-      final BodyDeclaration u = (BodyDeclaration) makeAST.CLASS_BODY_DECLARATIONS.from($.get());
-      final ASTRewrite r = createRewrite(u);
-      final TextEdit e = r.rewriteAST($, null);
+    final Document $ = new Document(from);
+    fixedPoint($);
+    return $.get();
+  }
+
+  /** Trims body declarations repeatedly, until no more changes
+   * @param d JD, trimmed in place
+   * @return the tree parsed in the last round, which represents the final
+   *         content of the document */
+  public BodyDeclaration fixedPoint(final Document d) {
+    for (;;) {
+      final BodyDeclaration $ = (BodyDeclaration) makeAST.CLASS_BODY_DECLARATIONS.from(d.get());
+      final ASTRewrite r = createRewrite($);
+      final TextEdit e = r.rewriteAST(d, null);
       try {
-        e.apply($);
+        e.apply(d);
       } catch (final MalformedTreeException | IllegalArgumentException | BadLocationException x) {
         monitor.logEvaluationError(this, x);
         throw new AssertionError(x);
       }
       if (!e.hasChildren())
-        return $.get();
+        return $;
     }
   }
 
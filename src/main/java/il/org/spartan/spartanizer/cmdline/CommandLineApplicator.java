@@ -3,6 +3,7 @@ package il.org.spartan.spartanizer.cmdline;
 import org.eclipse.jdt.core.dom.*;
 
 import il.org.spartan.plugin.*;
+import il.org.spartan.spartanizer.dispatch.*;
 
 /** An {@link Applicator} suitable for the command line.
  * @author Matteo Orru'
@@ -19,6 +20,8 @@ public class CommandLineApplicator extends Applicator {
 
   // private CommandLine$Applicator a = new CommandLine$Applicator(".");
   private final CommandLine$Applicator a = new CommandLine$Applicator();
+  private int prefetch = CommandLineSelection.PREFETCH;
+  private final RunStatistics statistics = new RunStatistics();
 
   /** Default listener configuration of {@link GUIBatchLaconizer}. Simple
    * printing to console.
@@ -32,6 +35,27 @@ public class CommandLineApplicator extends Applicator {
     return this;
   }
 
+  /** @param ¢ how many units may be parsed ahead of the one processed
+   * @return this applicator */
+  public CommandLineApplicator prefetch(final int ¢) {
+    prefetch = ¢;
+    return this;
+  }
+
+  /** @return statistics of the files processed by {@link #go()} */
+  public RunStatistics statistics() {
+    return statistics;
+  }
+
+  /** Reuse fixed points computed by earlier runs, with the same tippers, on the
+   * same code
+   * @param directory where fixed points are kept
+   * @return this applicator */
+  public CommandLineApplicator cache(final String directory) {
+    a.cache = ResultCache.in(directory, Toolbox.defaultInstance().fingerprint());
+    return this;
+  }
+
   /** @return this */
   private CommandLineApplicator defaultListenerSilent() {
     listener((final Object... __) -> {
@@ -131,10 +155,16 @@ public class CommandLineApplicator extends Applicator {
   @Override public void go() {
     System.out.println("selection().size(): " + selection().size());
     if (selection() != null && listener() != null && passes() > 0 && !selection().isEmpty())
-      for (final CompilationUnit ¢ : ((CommandLineSelection) selection()).getCompilationUnits()) {
+      ((CommandLineSelection) selection()).forEach(prefetch, ¢ -> {
         assert ¢ != null;
+        statistics.begin(¢.types().isEmpty() ? "?" : ((AbstractTypeDeclaration) ¢.types().get(0)).getName() + "");
         a.go(¢);
-      }
+        statistics.end();
+      });
+    if (a.cache != null)
+      System.out.println(a.cache.summary());
+    System.out.print(statistics.summary());
+    System.out.println("Sum of heap pool peaks: " + (CommandLineSelection.sumOfPoolPeaks() >> 20) + "MB");
   }
   // TODO Matteo (reminder for himself): same as AbstractCommandLineSpartanizer
   // (code duplication to be resolved)
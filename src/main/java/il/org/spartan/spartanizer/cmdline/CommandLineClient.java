@@ -1,12 +1,29 @@
 package il.org.spartan.spartanizer.cmdline;
 
+import java.util.*;
+
 /** Simplified version of command line client that uses spartizer applicator
  * @author Matteo Orru' */
 public class CommandLineClient { // extends AbstractCommandLineSpartanizer{
   // TODO Matteo: Add instruction to parse command line
   // TODO Matteo: Add prompt help
   public static void main(final String[] args) {
-    for (final String ¢ : args.length != 0 ? args : new String[] { "." })
-      new CommandLineSpartanizer(¢).fire();
+    final List<String> paths = new ArrayList<>();
+    boolean diffs = false, gzip = false;
+    for (final String ¢ : args)
+      if ("--diff".equals(¢))
+        diffs = true;
+      else if ("--gzip".equals(¢))
+        gzip = true;
+      else
+        paths.add(¢);
+    if (paths.isEmpty())
+      paths.add(".");
+    for (final String ¢ : paths) {
+      final CommandLineSpartanizer s = new CommandLineSpartanizer(¢);
+      s.diffs = diffs;
+      s.gzip = gzip;
+      s.fire();
+    }
   }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package il.org.spartan.spartanizer.cmdline;
 
 import java.io.*;
+import java.lang.management.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 import org.eclipse.jdt.core.dom.*;
 
@@ -10,10 +14,17 @@ import il.org.spartan.plugin.*;
 import il.org.spartan.spartanizer.engine.*;
 import il.org.spartan.utils.*;
 
-/** Selection useful to deal with projects using the command line
+/** Selection useful to deal with projects using the command line. A
+ * selection made from a path holds only the files found in it; each is parsed
+ * when it is about to be processed, and let go of right after, so that the
+ * size of the project is not bound by the heap.
  * @author Matteo Orru'
  * @since 2016 */
 public class CommandLineSelection extends AbstractSelection<CommandLineSelection> {
+  /** Default number of units parsed ahead of their processing */
+  public static final int PREFETCH = 4;
+  /** Marks the end of the units passed from the parser */
+  private static final WrappedCompilationUnit END = new WrappedCompilationUnit((File) null);
   private List<WrappedCompilationUnit> compilationUnits;
 
   public CommandLineSelection(final List<WrappedCompilationUnit> compilationUnits, final String name) {
@@ -24,7 +35,7 @@ public class CommandLineSelection extends AbstractSelection<CommandLineSelection
   public List<CompilationUnit> getCompilationUnits() {
     final List<CompilationUnit> $ = new ArrayList<>();
     for (final WrappedCompilationUnit ¢ : inner)
-      $.add(¢.compilationUnit);
+      $.add(¢.build().compilationUnit);
     return $;
   }
 
@@ -32,6 +43,81 @@ public class CommandLineSelection extends AbstractSelection<CommandLineSelection
     return inner;
   }
 
+  /** Passes each unit of this selection, in order, to a consumer. Units are
+   * parsed by a thread of their own, at most a given number ahead of the unit
+   * being processed; units read from files are let go of once processed.
+   * Units which cannot be parsed are reported and skipped; an {@link Error}
+   * of the parser, e.g., an {@link OutOfMemoryError}, stops it, and is thrown
+   * here, once the units parsed before it were processed.
+   * @param prefetch how many units may be parsed ahead
+   * @param c JD */
+  public void forEach(final int prefetch, final Consumer<CompilationUnit> c) {
+    final BlockingQueue<WrappedCompilationUnit> q = new ArrayBlockingQueue<>(prefetch);
+    final AtomicReference<Throwable> failure = new AtomicReference<>();
+    final Thread parser = new Thread(() -> {
+      try {
+        for (final WrappedCompilationUnit ¢ : inner)
+          try {
+            q.put(¢.build());
+          } catch (final RuntimeException x) {
+            monitor.logEvaluationError(this, x);
+          }
+        q.put(END);
+      } catch (final InterruptedException x) {
+        monitor.logCancellationRequest(this, x);
+      } catch (final Throwable x) {
+        failure.set(x);
+      }
+    }, "parser");
+    parser.setDaemon(true);
+    parser.start();
+    try {
+      for (WrappedCompilationUnit ¢ = next(q, parser); ¢ != END; ¢ = next(q, parser)) {
+        c.accept(¢.compilationUnit);
+        if (¢.file != null)
+          ¢.dispose();
+      }
+    } catch (final InterruptedException x) {
+      monitor.logCancellationRequest(this, x);
+      Thread.currentThread().interrupt();
+    } finally {
+      parser.interrupt();
+    }
+    final Throwable x = failure.get();
+    if (x instanceof Error)
+      throw (Error) x;
+    if (x != null)
+      throw new IllegalStateException(x);
+  }
+
+  /** @param q where the parser puts units
+   * @param parser JD
+   * @return the next unit, or {@link #END} if there is none, and the parser
+   *         stopped, whether or not it put {@link #END}
+   * @throws InterruptedException */
+  private static WrappedCompilationUnit next(final BlockingQueue<WrappedCompilationUnit> q, final Thread parser) throws InterruptedException {
+    for (;;) {
+      final WrappedCompilationUnit $ = q.poll(100, TimeUnit.MILLISECONDS);
+      if ($ != null)
+        return $;
+      if (!parser.isAlive())
+        return q.isEmpty() ? END : q.take();
+    }
+  }
+
+  /** The pools of the heap reach their peaks at different times, so this sum
+   * is an upper bound of the peak heap, not the peak heap itself.
+   * @return the sum, over the pools of the heap, of the largest number of
+   *         bytes each pool used since the JVM started, or since its peak
+   *         was last reset */
+  public static long sumOfPoolPeaks() {
+    long $ = 0;
+    for (final MemoryPoolMXBean ¢ : ManagementFactory.getMemoryPoolMXBeans())
+      if (¢.getType() == MemoryType.HEAP)
+        $ += ¢.getPeakUsage().getUsed();
+    return $;
+  }
+
   /** Factory method for empty selection
    * @return empty selection */
   public static CommandLineSelection empty() {
@@ -61,13 +147,27 @@ public class CommandLineSelection extends AbstractSelection<CommandLineSelection
       return getFromPath(from);
     }
 
+    /** @param path JD
+     * @return a selection of the <code>.java</code> files under the path,
+     *         none of which is parsed yet */
     public static AbstractSelection<CommandLineSelection> getFromPath(final String path) {
       final List<WrappedCompilationUnit> cuList = new ArrayList<>();
       for (final File ¢ : new FilesGenerator(".java").from(path))
-        cuList.add(WrappedCompilationUnit.of((CompilationUnit) makeAST.COMPILATION_UNIT.from(¢)));
+        cuList.add(new WrappedCompilationUnit(¢));
       return new CommandLineSelection(cuList, "selection");
     }
 
+    /** @param from JD
+     * @return a selection of the <code>.java</code> files under the path,
+     *         other than test files, none of which is parsed yet */
+    public static CommandLineSelection getSourcesFromPath(final String from) {
+      final List<WrappedCompilationUnit> $ = new ArrayList<>();
+      for (final File ¢ : new FilesGenerator(".java").from(from))
+        if (!system.isTestFile(¢))
+          $.add(new WrappedCompilationUnit(¢));
+      return new CommandLineSelection($, "selection");
+    }
+
     public static List<CompilationUnit> getAllCompilationUnit(final String from) {
       final List<CompilationUnit> $ = new ArrayList<>();
       for (final File ¢ : new FilesGenerator(".java").from(from)) {
@@ -94,7 +194,7 @@ public class CommandLineSelection extends AbstractSelection<CommandLineSelection
     final List<WrappedCompilationUnit> cuList = new ArrayList<>();
     System.err.println("Loading selection ...");
     for (final File ¢ : new FilesGenerator(".java").from(inputPath))
-      cuList.add(WrappedCompilationUnit.of((CompilationUnit) makeAST.COMPILATION_UNIT.from(¢)));
+      cuList.add(new WrappedCompilationUnit(¢));
     // compilationUnits = cuList;
     inner = cuList;
     System.err.println("Loading selection: done!");
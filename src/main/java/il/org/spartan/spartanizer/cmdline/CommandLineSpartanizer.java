@@ -8,6 +8,11 @@ import java.io.*;
  * @since 2016 */
 public class CommandLineSpartanizer extends AbstractCommandLineSpartanizer {
   private final String name;
+  /** Whether to write a unified diff of each changed method, instead of the
+   * text of all methods, before and after */
+  boolean diffs;
+  /** Whether to compress the diff */
+  boolean gzip;
 
   CommandLineSpartanizer(final String path) {
     this(path, system.folder2File(path));
@@ -21,16 +26,24 @@ public class CommandLineSpartanizer extends AbstractCommandLineSpartanizer {
   @Override public void apply() {
     System.out.println(inputPath);
     try {
-      Reports.initializeFile(folder + name + ".before.java", "before");
-      Reports.initializeFile(folder + name + ".after.java", "after");
+      if (diffs)
+        Reports.initializeDiffFile(folder + name + ".diff" + (gzip ? ".gz" : ""), "diff", gzip);
+      else {
+        Reports.initializeFile(folder + name + ".before.java", "before");
+        Reports.initializeFile(folder + name + ".after.java", "after");
+      }
       Reports.intializeReport(folder + name + ".CSV", "metrics");
       Reports.intializeReport(folder + name + ".spectrum.CSV", "spectrum");
       CommandLineApplicator.defaultApplicator().passes(20)
-          .selection(CommandLineSelection.of(CommandLineSelection.Util.getAllCompilationUnit(inputPath))).go();
+          .selection(CommandLineSelection.Util.getSourcesFromPath(inputPath)).go();
       Reports.close("metrics");
       Reports.close("spectrum");
-      Reports.closeFile("before");
-      Reports.closeFile("after");
+      if (diffs)
+        Reports.closeFile("diff");
+      else {
+        Reports.closeFile("before");
+        Reports.closeFile("after");
+      }
     } catch (final IOException x) {
       x.printStackTrace();
     }
@@ -0,0 +1,232 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.eclipse.jface.text.*;
+
+import il.org.spartan.plugin.*;
+import il.org.spartan.spartanizer.dispatch.*;
+
+/** A harness for performance regressions: runs each file of a corpus, such as
+ * <code>laconization-cases</code>, through the fixed point of {@link Trimmer},
+ * checks the output against the file of the same name among the expected
+ * results, if there is one, and measures the wall time, rounds, tips,
+ * allocated bytes and sum of the peaks of the heap pools of each case. The
+ * measurements are compared with a baseline, a CSV file written by an earlier
+ * run; a case fails if any of them exceeds its baseline by more than
+ * {@link #threshold} percent.
+ * <p>
+ * Times and heap are the least of {@link #repeat} runs, after a warm up run,
+ * and are not compared below {@link #FLOORS}, where noise is larger than any
+ * change.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class CorpusBenchmark {
+  /** Names of the metrics, as in the header of the baseline */
+  static final String[] METRICS = { "wall ms", "rounds", "tips", "allocated bytes", "sum of pool peaks bytes" };
+  /** Smallest baseline of each metric which is compared as is; smaller ones
+   * are raised to it */
+  static final long[] FLOORS = { 20, 0, 0, 1 << 20, 16 << 20 };
+
+  public static void main(final String[] args) throws IOException {
+    final List<String> files = new ArrayList<>();
+    int threshold = 25, repeat = 3;
+    boolean update = false, adaptive = false;
+    for (int ¢ = 0; ¢ < args.length; ++¢)
+      if ("-t".equals(args[¢]))
+        threshold = Integer.parseInt(args[++¢]);
+      else if ("-r".equals(args[¢]))
+        repeat = Integer.parseInt(args[++¢]);
+      else if ("--update".equals(args[¢]))
+        update = true;
+      else if ("--adaptive".equals(args[¢]))
+        adaptive = true;
+      else
+        files.add(args[¢]);
+    if (files.size() != 3) {
+      System.out.println("Usage: CorpusBenchmark [-t percent] [-r repeats] [--update] [--adaptive] <cases> <results> <baseline.csv>");
+      return;
+    }
+    final CorpusBenchmark b = new CorpusBenchmark(new File(files.get(0)), new File(files.get(1)), Paths.get(files.get(2)));
+    b.threshold = threshold;
+    b.repeat = repeat;
+    if (adaptive)
+      b.toolbox = Toolbox.defaultInstance().adaptive();
+    final List<Measurement> ms = b.run();
+    for (final Measurement ¢ : ms)
+      System.out.println(¢.csv());
+    final List<String> failures = b.check(ms);
+    for (final String ¢ : failures)
+      System.out.println(¢);
+    if (update || !Files.exists(b.baseline))
+      b.write(ms);
+    if (!failures.isEmpty())
+      System.exit(1);
+  }
+
+  final File cases;
+  final File results;
+  final Path baseline;
+  /** Largest increase of a metric, in percent, which is not a regression */
+  public int threshold = 25;
+  /** Number of measured runs of each case */
+  public int repeat = 3;
+  /** The tippers applied, e.g., those of {@link Toolbox#adaptive()} */
+  public Toolbox toolbox = Toolbox.defaultInstance();
+
+  /** @param cases folder of the inputs
+   * @param results folder of the expected outputs, with the same names
+   * @param baseline CSV file of the measurements to compare with */
+  public CorpusBenchmark(final File cases, final File results, final Path baseline) {
+    this.cases = cases;
+    this.results = results;
+    this.baseline = baseline;
+  }
+
+  /** @return the measurements of all cases, ordered by name */
+  public List<Measurement> run() throws IOException {
+    final List<Measurement> $ = new ArrayList<>();
+    final File[] fs = cases.listFiles((__, name) -> name.endsWith(".java"));
+    if (fs == null)
+      return $;
+    Arrays.sort(fs);
+    for (final File ¢ : fs)
+      $.add(measure(¢));
+    return $;
+  }
+
+  Measurement measure(final File f) throws IOException {
+    final String input = new String(Files.readAllBytes(f.toPath()), UTF_8);
+    final Measurement $ = new Measurement(f.getName());
+    Arrays.fill($.values, Long.MAX_VALUE);
+    for (int ¢ = 0; ¢ <= repeat; ++¢) {
+      resetPeaks();
+      final long allocated = allocated();
+      final long start = System.nanoTime();
+      final Trimmer t = new Trimmer(toolbox);
+      final Document d = new Document(input);
+      t.fixed(d);
+      final long millis = (System.nanoTime() - start) / 1_000_000;
+      final long heap = CommandLineSelection.sumOfPoolPeaks();
+      if (¢ == 0)
+        continue;
+      $.output = d.get();
+      $.values[0] = Math.min($.values[0], millis);
+      $.values[1] = t.rounds;
+      $.values[2] = t.tips;
+      $.values[3] = allocated < 0 ? -1 : Math.min($.values[3], allocated() - allocated);
+      $.values[4] = Math.min($.values[4], heap);
+    }
+    return $;
+  }
+
+  /** @param ms measurements of this run
+   * @return a description of each output which differs from its expected
+   *         one, and of each metric which regressed */
+  public List<String> check(final List<Measurement> ms) throws IOException {
+    final List<String> $ = new ArrayList<>();
+    final Map<String, Measurement> before = read(baseline);
+    for (final Measurement m : ms) {
+      final File expected = new File(results, m.name);
+      if (expected.exists() && !Essence.of(new String(Files.readAllBytes(expected.toPath()), UTF_8)).equals(Essence.of(m.output)))
+        $.add(m.name + ": output differs from " + expected);
+      final Measurement b = before.get(m.name);
+      if (b != null)
+        for (int ¢ = 0; ¢ < METRICS.length; ++¢)
+          if (regressed(m.values[¢], b.values[¢], FLOORS[¢], threshold))
+            $.add(m.name + ": " + METRICS[¢] + " is " + m.values[¢] + ", baseline is " + b.values[¢]);
+    }
+    return $;
+  }
+
+  /** Writes the baseline
+   * @param ms JD */
+  public void write(final List<Measurement> ms) throws IOException {
+    final List<String> lines = new ArrayList<>();
+    lines.add("case," + String.join(",", METRICS));
+    for (final Measurement ¢ : ms)
+      lines.add(¢.csv());
+    Files.write(baseline, lines, UTF_8);
+  }
+
+  /** @param p a baseline
+   * @return its measurements, by the name of each case; empty if there is no
+   *         such file */
+  static Map<String, Measurement> read(final Path p) throws IOException {
+    final Map<String, Measurement> $ = new LinkedHashMap<>();
+    if (!Files.isRegularFile(p))
+      return $;
+    for (final String line : Files.readAllLines(p, UTF_8)) {
+      final Measurement m = Measurement.parse(line);
+      if (m != null)
+        $.put(m.name, m);
+    }
+    return $;
+  }
+
+  /** @param now JD
+   * @param before JD
+   * @param floor smallest baseline compared as is
+   * @param percent JD
+   * @return whether the value exceeds its baseline by more than this
+   *         percentage; unknown values, i.e., negative ones, never do */
+  static boolean regressed(final long now, final long before, final long floor, final int percent) {
+    return now >= 0 && before >= 0 && now * 100 > Math.max(before, floor) * (100 + percent);
+  }
+
+  /** @return bytes allocated so far by the calling thread, or -1 if the JVM
+   *         does not tell */
+  static long allocated() {
+    final ThreadMXBean $ = ManagementFactory.getThreadMXBean();
+    return !($ instanceof com.sun.management.ThreadMXBean) ? -1
+        : ((com.sun.management.ThreadMXBean) $).getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static void resetPeaks() {
+    for (final MemoryPoolMXBean ¢ : ManagementFactory.getMemoryPoolMXBeans())
+      if (¢.getType() == MemoryType.HEAP)
+        ¢.resetPeakUsage();
+  }
+
+  /** The metrics of one case, in the order of {@link CorpusBenchmark#METRICS} */
+  public static final class Measurement {
+    public final String name;
+    public final long[] values = new long[METRICS.length];
+    /** The output of the last run; not in the baseline */
+    String output;
+
+    Measurement(final String name) {
+      this.name = name;
+    }
+
+    String csv() {
+      final StringBuilder $ = new StringBuilder(name);
+      for (final long ¢ : values)
+        $.append(',').append(¢);
+      return $ + "";
+    }
+
+    /** @param line a line of a baseline
+     * @return the measurement it records, or <code><b>null</b></code> if it
+     *         is the header, or malformed */
+    static Measurement parse(final String line) {
+      final String[] fields = line.split(",");
+      if (fields.length != METRICS.length + 1 || "case".equals(fields[0]))
+        return null;
+      final Measurement $ = new Measurement(fields[0]);
+      try {
+        for (int ¢ = 0; ¢ < METRICS.length; ++¢)
+          $.values[¢] = Long.parseLong(fields[¢ + 1].trim());
+      } catch (final NumberFormatException x) {
+        monitor.debug(line, x);
+        return null;
+      }
+      return $;
+    }
+  }
+}
@@ -0,0 +1,221 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jface.text.*;
+
+import il.org.spartan.plugin.*;
+import il.org.spartan.plugin.PreferencesResources.*;
+import il.org.spartan.spartanizer.ast.navigate.*;
+import il.org.spartan.spartanizer.dispatch.*;
+import il.org.spartan.spartanizer.engine.*;
+
+/** A long lived spartanizer, which pays for JVM startup, class loading and the
+ * making of a {@link Toolbox} only once, and then serves requests, one JSON
+ * object per line, read from the standard input; responses are written, one
+ * JSON object per line, to the standard output, in the order of the requests.
+ * Requests are processed concurrently by a pool of workers, so a client may
+ * send many requests before reading the first response.
+ * <p>
+ * A request may carry these fields:
+ * <ul>
+ * <li><code>id</code>: any value, returned as is in the response;
+ * <li><code>path</code>: a file to spartanize, or <code>source</code>: the
+ * text to spartanize;
+ * <li><code>groups</code>: names of the {@link TipperGroup}s to enable; all,
+ * if absent;
+ * <li><code>tips</code>: if <code><b>true</b></code>, list the tips offered
+ * on the original text;
+ * <li><code>write</code>: if <code><b>true</b></code>, and a
+ * <code>path</code> is given, replace the file with the spartanized text.
+ * </ul>
+ * A response carries the <code>id</code>, <code>ok</code>, and either an
+ * <code>error</code> message, or the spartanized <code>source</code>, whether
+ * it <code>changed</code>, the <code>tips</code> if requested, and
+ * <code>metrics</code> of the text before and after.
+ * <p>
+ * Run with <code>--daemon [threads]</code> as the arguments of
+ * {@link InteractiveSpartanizer#main(String[])}. The standard input of the
+ * JVM is the only channel; local sockets are not supported by the Java 8
+ * platform this plugin targets.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class Daemon {
+  private static final Set<TipperGroup> ALL = Collections.unmodifiableSet(EnumSet.allOf(TipperGroup.class));
+  /** How many requests per worker may be queued before reading pauses */
+  private static final int WINDOW = 4;
+  /** Marks the end of the requests for the writer */
+  private static final Future<String> END = CompletableFuture.completedFuture(null);
+
+  /** @param args optional number of worker threads */
+  public static void main(final String[] args) {
+    final int threads = args.length == 0 ? Runtime.getRuntime().availableProcessors() : threads(args[0]);
+    if (threads <= 0) {
+      System.err.println("Usage: InteractiveSpartanizer --daemon [threads], where threads is a positive number");
+      return;
+    }
+    try (final BufferedReader in = new BufferedReader(new InputStreamReader(System.in, UTF_8));
+        final Writer out = new BufferedWriter(new OutputStreamWriter(System.out, UTF_8))) {
+      new Daemon(threads).serve(in, out);
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "daemon");
+    }
+  }
+
+  /** @param ¢ JD
+   * @return the number it holds, or 0 if it holds none */
+  static int threads(final String ¢) {
+    try {
+      return Integer.parseInt(¢.trim());
+    } catch (@SuppressWarnings("unused") final NumberFormatException __) {
+      return 0;
+    }
+  }
+
+  private final int threads;
+
+  /** @param threads number of workers */
+  public Daemon(final int threads) {
+    this.threads = threads;
+    Toolbox.defaultInstance();
+  }
+
+  /** Serves requests until the end of the input.
+   * @param in where requests are read, one per line
+   * @param out where responses are written, one per line, and flushed
+   * @throws IOException if reading or writing fails */
+  public void serve(final BufferedReader in, final Writer out) throws IOException {
+    final ExecutorService workers = Executors.newFixedThreadPool(threads);
+    final ExecutorService writing = Executors.newSingleThreadExecutor();
+    final BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(WINDOW * threads);
+    final Future<Void> writer = writing.submit(() -> {
+      for (Future<String> ¢ = pending.take(); ¢ != END; ¢ = pending.take()) {
+        out.write(¢.get());
+        out.write('\n');
+        out.flush();
+      }
+      return null;
+    });
+    try {
+      for (String line = in.readLine(); line != null; line = in.readLine())
+        if (!line.trim().isEmpty()) {
+          final String request = line;
+          enqueue(pending, workers.submit(() -> respond(request)), writer);
+        }
+      enqueue(pending, END, writer);
+      writer.get();
+    } catch (final InterruptedException x) {
+      monitor.logCancellationRequest(this, x);
+      Thread.currentThread().interrupt();
+    } catch (final ExecutionException x) {
+      throw new IOException(x.getCause());
+    } finally {
+      workers.shutdownNow();
+      writing.shutdownNow();
+    }
+  }
+
+  /** Queues a response for the writer, waiting while the queue is full, as
+   * long as the writer runs
+   * @throws ExecutionException if the writer failed, e.g., since the client
+   *         closed its end
+   * @throws IOException if the writer stopped otherwise */
+  private static void enqueue(final BlockingQueue<Future<String>> pending, final Future<String> f, final Future<Void> writer)
+      throws InterruptedException, ExecutionException, IOException {
+    while (!pending.offer(f, 100, TimeUnit.MILLISECONDS))
+      if (writer.isDone()) {
+        writer.get();
+        throw new IOException("Responses are no longer written");
+      }
+  }
+
+  /** A failure of a request, including an {@link Error}, such as a
+   * {@link StackOverflowError} on a deeply nested input, is its response, and
+   * does not stop the daemon; other {@link VirtualMachineError}s leave the JVM
+   * in no state to serve, and are thrown.
+   * @param line a request
+   * @return the response, never <code><b>null</b></code> */
+  String respond(final String line) {
+    final Map<String, Object> $ = new LinkedHashMap<>();
+    try {
+      final Object parsed = json.parse(line);
+      if (!(parsed instanceof Map))
+        throw new IllegalArgumentException("Request is not a JSON object");
+      final Map<?, ?> request = (Map<?, ?>) parsed;
+      $.put("id", request.get("id"));
+      $.put("ok", Boolean.TRUE);
+      respond(request, $);
+    } catch (final Throwable x) {
+      if (x instanceof VirtualMachineError && !(x instanceof StackOverflowError))
+        throw (VirtualMachineError) x;
+      $.put("ok", Boolean.FALSE);
+      $.put("error", x + "");
+    }
+    return json.write($);
+  }
+
+  private void respond(final Map<?, ?> request, final Map<String, Object> $) throws IOException {
+    final Object path = request.get("path");
+    final String before = path != null ? new String(Files.readAllBytes(Paths.get(path + "")), UTF_8) : source(request);
+    final long start = System.nanoTime();
+    final InteractiveSpartanizer s = new InteractiveSpartanizer();
+    s.toolbox = Toolbox.snapshot(groups(request.get("groups")));
+    final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT.from(before);
+    if (Boolean.TRUE.equals(request.get("tips")))
+      $.put("tips", tips(s, u));
+    final Document d = new Document(before);
+    final CompilationUnit after = s.fixedPoint(d);
+    final String text = d.get();
+    final boolean changed = !text.equals(before);
+    if (path != null && changed && Boolean.TRUE.equals(request.get("write")))
+      Files.write(Paths.get(path + ""), text.getBytes(UTF_8));
+    $.put("changed", Boolean.valueOf(changed));
+    $.put("source", text);
+    final Map<String, Object> measures = new LinkedHashMap<>();
+    measures.put("millis", Long.valueOf((System.nanoTime() - start) / 1000000));
+    measures.put("length", Arrays.asList(Integer.valueOf(before.length()), Integer.valueOf(text.length())));
+    measures.put("tokens", Arrays.asList(Integer.valueOf(metrics.tokens(before)), Integer.valueOf(metrics.tokens(text))));
+    measures.put("nodes", Arrays.asList(Integer.valueOf(count.nodes(u)), Integer.valueOf(count.nodes(after))));
+    $.put("metrics", measures);
+  }
+
+  private static String source(final Map<?, ?> request) {
+    final Object $ = request.get("source");
+    if (!($ instanceof String))
+      throw new IllegalArgumentException("Request has neither a path nor a source");
+    return (String) $;
+  }
+
+  private static List<Map<String, Object>> tips(final InteractiveSpartanizer s, final CompilationUnit u) {
+    final List<Tip> ts = new TipTree();
+    u.accept(s.collect(ts));
+    final List<Map<String, Object>> $ = new ArrayList<>();
+    for (final Tip t : ts) {
+      final Map<String, Object> ¢ = new LinkedHashMap<>();
+      ¢.put("line", Integer.valueOf(t.lineNumber));
+      ¢.put("from", Integer.valueOf(t.from));
+      ¢.put("to", Integer.valueOf(t.to));
+      ¢.put("tipper", t.tipperClass == null ? null : t.tipperClass.getSimpleName());
+      ¢.put("description", t.description);
+      $.add(¢);
+    }
+    return $;
+  }
+
+  private static Set<TipperGroup> groups(final Object names) {
+    if (names == null)
+      return ALL;
+    if (!(names instanceof List))
+      throw new IllegalArgumentException("groups must be a list of names, out of " + ALL);
+    final Set<TipperGroup> $ = EnumSet.noneOf(TipperGroup.class);
+    for (final Object ¢ : (List<?>) names)
+      $.add(TipperGroup.valueOf(¢ + ""));
+    return $;
+  }
+}
@@ -2,6 +2,8 @@ package il.org.spartan.spartanizer.cmdline;
 
 import static il.org.spartan.Utils.*;
 
+import java.util.regex.*;
+
 import org.eclipse.jdt.core.dom.*;
 import org.eclipse.jface.text.*;
 
@@ -64,13 +66,22 @@ public enum GuessedContext {
       not_statment_may_occur_in_static_initializer_block, //
   };
 
-  /** Finds the most appropriate Guess for a given code fragment
+  private static final Pattern typeKeyword = Pattern.compile("\\b(class|interface|enum|package|import)\\b");
+
+  /** Finds the most appropriate Guess for a given code fragment. Contexts are
+   * tried in the order of {@link #alternativeContextsToConsiderInThisOrder},
+   * but those which the tokens of the fragment rule out are not parsed at all;
+   * e.g., a fragment with no <code>;</code>, <code>{</code> or
+   * <code>}</code> cannot be a statement, and a fragment without a
+   * <code><b>class</b></code> (or similar) keyword cannot be a compilation unit.
    * @param codeFragment JD
    * @return most appropriate Guess, or null, if the parameter could not be
    *         parsed appropriately. */
   public static GuessedContext find(final String codeFragment) {
+    final String skeleton = skeleton(codeFragment);
     for (final GuessedContext $ : alternativeContextsToConsiderInThisOrder)
-      if ($.contains($.intoCompilationUnit(codeFragment) + "", codeFragment) && wasActuallyInsertedToWrapper($, codeFragment))
+      if ($.mayHold(skeleton) && $.contains($.intoCompilationUnit(codeFragment) + "", codeFragment)
+          && wasActuallyInsertedToWrapper($, codeFragment))
         return $;
     azzert.fail("שים ליבך!\n" + //
         "Nota!\n" + //
@@ -89,7 +100,59 @@ public enum GuessedContext {
   }
 
   private static boolean wasActuallyInsertedToWrapper(final GuessedContext $, final String codeFragment) {
-    return !($.intoCompilationUnit("") + "").equals($.intoCompilationUnit(codeFragment) + "");
+    return !$.empty().equals($.intoCompilationUnit(codeFragment) + "");
+  }
+
+  /** @param codeFragment JD
+   * @return the parameter, with comments removed, and the contents of string
+   *         and character literals blanked, so that only its own tokens
+   *         remain */
+  static String skeleton(final String codeFragment) {
+    final StringBuilder $ = new StringBuilder(codeFragment.length());
+    for (int i = 0, n = codeFragment.length(); i < n; ++i) {
+      final char c = codeFragment.charAt(i);
+      if (c == '/' && i + 1 < n && codeFragment.charAt(i + 1) == '/') {
+        for (; i < n && codeFragment.charAt(i) != '\n'; ++i)
+          ;
+        $.append('\n');
+      } else if (c == '/' && i + 1 < n && codeFragment.charAt(i + 1) == '*') {
+        for (i += 2; i < n && !(codeFragment.charAt(i) == '*' && i + 1 < n && codeFragment.charAt(i + 1) == '/'); ++i)
+          ;
+        ++i;
+        $.append(' ');
+      } else if (c != '"' && c != '\'')
+        $.append(c);
+      else {
+        for (++i; i < n && codeFragment.charAt(i) != c; ++i)
+          if (codeFragment.charAt(i) == '\\')
+            ++i;
+        $.append(c).append(c);
+      }
+    }
+    return $ + "";
+  }
+
+  /** A necessary condition for a fragment to fit in this context, computed on
+   * its tokens alone
+   * @param skeleton the fragment, as returned by {@link #skeleton(String)}
+   * @return <code><b>false</b></code> if the fragment cannot possibly be
+   *         parsed in this context */
+  boolean mayHold(final String skeleton) {
+    switch (this) {
+      case COMPILATION_UNIT_LOOK_ALIKE:
+      case OUTER_TYPE_LOOKALIKE:
+        return typeKeyword.matcher(skeleton).find();
+      case METHOD_LOOKALIKE:
+        return delimited(skeleton) || skeleton.indexOf('(') >= 0;
+      case EXPRESSION_LOOK_ALIKE:
+        return true;
+      default:
+        return delimited(skeleton);
+    }
+  }
+
+  private static boolean delimited(final String skeleton) {
+    return skeleton.indexOf(';') >= 0 || skeleton.indexOf('{') >= 0 || skeleton.indexOf('}') >= 0;
   }
 
   static String enumerateFailingAttempts(final String codeFragment) {
@@ -116,12 +179,18 @@ public enum GuessedContext {
 
   private final String before;
   private final String after;
+  /** The wrapper alone, parsed and printed; computed once */
+  private String empty;
 
   GuessedContext(final String before, final String after) {
     this.before = before;
     this.after = after;
   }
 
+  private String empty() {
+    return empty != null ? empty : (empty = intoCompilationUnit("") + "");
+  }
+
   /** Guess a given code fragment, and then parse it, converting it into a
    * {@link CompilationUnit}.
    * @param codeFragment JD
@@ -3,6 +3,7 @@ package il.org.spartan.spartanizer.cmdline;
 import java.util.*;
 
 import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jface.text.*;
 
 import il.org.spartan.spartanizer.dispatch.*;
 import il.org.spartan.spartanizer.engine.*;
@@ -11,9 +12,13 @@ import il.org.spartan.spartanizer.tipping.*;
 /** @author Yossi Gil
  * @since 2016 */
 public final class InteractiveSpartanizer {
-  /** @param fileNames if present, will process these as batch */
+  /** @param fileNames if present, will process these as batch; if the first
+   *        is <code>--daemon</code>, serve requests, as described in
+   *        {@link Daemon} */
   public static void main(final String[] fileNames) {
-    if (fileNames.length != 0)
+    if (fileNames.length != 0 && "--daemon".equals(fileNames[0]))
+      Daemon.main(Arrays.copyOfRange(fileNames, 1, fileNames.length));
+    else if (fileNames.length != 0)
       BatchSpartanizer.main(fileNames);
     else
       System.out.println(new InteractiveSpartanizer().fixedPoint(read()));
@@ -32,6 +37,9 @@ public final class InteractiveSpartanizer {
   public Toolbox toolbox = Toolbox.defaultInstance();
 
   public InteractiveSpartanizer disable(final Class<? extends TipperCategory> ¢) {
+    if (!changed)
+      toolbox = Toolbox.muttableDefaultInstance();
+    changed = true;
     toolbox.disable(¢);
     return this;
   }
@@ -43,6 +51,13 @@ public final class InteractiveSpartanizer {
     return new Trimmer(toolbox).fixed(from);
   }
 
+  /** Apply trimming repeatedly, until no more changes
+   * @param ¢ what to process, trimmed in place
+   * @return the {@link CompilationUnit} of the trimmed text */
+  public CompilationUnit fixedPoint(final Document ¢) {
+    return new Trimmer(toolbox).fixed(¢);
+  }
+
   ASTVisitor collect(final List<Tip> $) {
     return new DispatchingVisitor() {
       @Override protected <N extends ASTNode> boolean go(final N n) {
@@ -92,6 +92,14 @@ public class Reports {
     files.put(id, new PrintWriter(new FileWriter(fileName)));
   }
 
+  /** Opens a file for {@link #printDiff(String, String, String, String)}
+   * @param fileName JD
+   * @param id JD
+   * @param gzip whether to compress the file */
+  public static void initializeDiffFile(final String fileName, final String id, final boolean gzip) throws IOException {
+    files.put(id, UnifiedDiff.writer(fileName, gzip));
+  }
+
   public static void intializeReport(final String reportFileName, final String id) {
     try {
       reports.put(id, new CSVStatistics(reportFileName, id));
@@ -173,6 +181,21 @@ public class Reports {
     files(key).print(input);
   }
 
+  /** Prints the unified diff of a type, if it changed
+   * @param name JD
+   * @param before JD
+   * @param after JD
+   * @param key JD */
+  public static void printDiff(final String name, final String before, final String after, final String key) {
+    files(key).print(UnifiedDiff.of(name, before, after));
+  }
+
+  /** @param key JD
+   * @return whether a file was opened under this key */
+  public static boolean hasFile(final String key) {
+    return files.containsKey(key);
+  }
+
   public static void closeFile(final String key) {
     files(key).flush();
     files(key).close();
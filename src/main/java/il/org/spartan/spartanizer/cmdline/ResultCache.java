@@ -0,0 +1,188 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import il.org.spartan.plugin.*;
+
+/** An on-disk cache of results of spartanization, addressed by the content of
+ * the input, and by a fingerprint of the configuration (e.g.,
+ * {@link il.org.spartan.spartanizer.dispatch.Toolbox#fingerprint()}) which
+ * produced them; an input which did not change since the last run need not be
+ * parsed and tipped again.
+ * <p>
+ * Each result is kept in a file named by the SHA-256 of the fingerprint and
+ * the input. Files are written under a temporary name and then moved into
+ * place, so that a reader never sees a partial result, even if several runs
+ * share a cache. When the cache grows beyond its bound, the results which were
+ * least recently used are removed.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class ResultCache {
+  /** After eviction, the cache is this fraction of its bound */
+  private static final double LOW_WATER = 0.75;
+  private static final long DEFAULT_BOUND = 1L << 30;
+
+  /** @param directory where results are kept
+   * @param fingerprint JD
+   * @return a cache bounded by the value, in megabytes, of the system property
+   *         <code>spartan.cache.megabytes</code>, or by one gigabyte */
+  public static ResultCache in(final String directory, final String fingerprint) {
+    final String megabytes = System.getProperty("spartan.cache.megabytes");
+    return new ResultCache(Paths.get(directory), fingerprint, megabytes == null ? DEFAULT_BOUND : Long.parseLong(megabytes) << 20);
+  }
+
+  private final Path directory;
+  private final String fingerprint;
+  private final long bound;
+  private final AtomicLong size = new AtomicLong();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  /** @param directory where results are kept
+   * @param fingerprint JD
+   * @param bound maximal total size, in bytes, of the results kept */
+  public ResultCache(final Path directory, final String fingerprint, final long bound) {
+    this.directory = directory;
+    this.fingerprint = fingerprint;
+    this.bound = bound;
+    try {
+      Files.createDirectories(directory);
+      try (Stream<Path> ps = Files.walk(directory)) {
+        size.set(ps.filter(Files::isRegularFile).mapToLong(ResultCache::length).sum());
+      }
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "Cache directory = " + directory);
+    }
+  }
+
+  /** @param input JD
+   * @return the result stored for the parameter, or <code><b>null</b></code>
+   *         if none is */
+  public String get(final String input) {
+    final Path p = path(input);
+    try {
+      final String $ = new String(Files.readAllBytes(p), UTF_8);
+      Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis()));
+      hits.incrementAndGet();
+      return $;
+    } catch (@SuppressWarnings("unused") final NoSuchFileException __) {
+      misses.incrementAndGet();
+      return null;
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "Cache entry = " + p);
+      misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /** Stores a result; failure to store is reported, but is not an error
+   * @param input JD
+   * @param result JD */
+  public void put(final String input, final String result) {
+    final Path p = path(input);
+    final byte[] bytes = result.getBytes(UTF_8);
+    try {
+      Files.createDirectories(p.getParent());
+      final Path temporary = Files.createTempFile(p.getParent(), ".", ".tmp");
+      Files.write(temporary, bytes);
+      final long previous = length(p);
+      try {
+        Files.move(temporary, p, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (@SuppressWarnings("unused") final AtomicMoveNotSupportedException __) {
+        Files.move(temporary, p, StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (size.addAndGet(bytes.length - previous) > bound)
+        evict();
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "Cache entry = " + p);
+    }
+  }
+
+  public int hits() {
+    return hits.get();
+  }
+
+  public int misses() {
+    return misses.get();
+  }
+
+  /** @return a line for a run summary */
+  public String summary() {
+    final int lookups = hits() + misses();
+    return String.format("cache %s: %d hits, %d misses (%.1f%% hit rate), %d KB", directory, Integer.valueOf(hits()), Integer.valueOf(misses()),
+        Double.valueOf(lookups == 0 ? 0 : 100.0 * hits() / lookups), Long.valueOf(size.get() >> 10));
+  }
+
+  @Override public String toString() {
+    return summary();
+  }
+
+  /** Removes the least recently used results, until the cache is well within
+   * its bound */
+  private synchronized void evict() {
+    if (size.get() <= bound)
+      return;
+    final List<Path> ps;
+    try (Stream<Path> s = Files.walk(directory)) {
+      ps = s.filter(x -> Files.isRegularFile(x) && !x.getFileName().toString().startsWith(".")).collect(Collectors.toList());
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "Cache directory = " + directory);
+      return;
+    }
+    final Map<Path, Long> times = new HashMap<>();
+    for (final Path ¢ : ps)
+      times.put(¢, Long.valueOf(modified(¢)));
+    ps.sort(Comparator.comparing(times::get));
+    for (final Path ¢ : ps) {
+      if (size.get() <= LOW_WATER * bound)
+        break;
+      final long length = length(¢);
+      try {
+        if (Files.deleteIfExists(¢))
+          size.addAndGet(-length);
+      } catch (final IOException x) {
+        monitor.infoIOException(x, "Cache entry = " + ¢);
+      }
+    }
+  }
+
+  private Path path(final String input) {
+    final String $ = sha256(fingerprint + "\n" + input);
+    return directory.resolve($.substring(0, 2)).resolve($.substring(2));
+  }
+
+  private static String sha256(final String s) {
+    try {
+      final StringBuilder $ = new StringBuilder();
+      for (final byte ¢ : MessageDigest.getInstance("SHA-256").digest(s.getBytes(UTF_8)))
+        $.append(String.format("%02x", Integer.valueOf(¢ & 0xFF)));
+      return $ + "";
+    } catch (final NoSuchAlgorithmException x) {
+      throw new AssertionError(x);
+    }
+  }
+
+  private static long length(final Path ¢) {
+    try {
+      return Files.size(¢);
+    } catch (@SuppressWarnings("unused") final IOException __) {
+      return 0;
+    }
+  }
+
+  private static long modified(final Path ¢) {
+    try {
+      return Files.getLastModifiedTime(¢).toMillis();
+    } catch (@SuppressWarnings("unused") final IOException __) {
+      return 0;
+    }
+  }
+}
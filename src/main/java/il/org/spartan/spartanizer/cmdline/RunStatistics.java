@@ -0,0 +1,344 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+import il.org.spartan.plugin.*;
+import il.org.spartan.spartanizer.dispatch.*;
+import il.org.spartan.spartanizer.engine.*;
+
+/** Statistics of a command line run: the time each file took, split by
+ * {@link Phase}, in histograms with logarithmic buckets, and the files, nodes
+ * and tips processed per second, sampled along the run. A run ends with a
+ * summary of percentiles, and with CSV files listing the slowest files, the
+ * files which exceeded their {@link Deadline}, and the throughput samples.
+ * <p>
+ * A file is timed by the thread which calls {@link #begin(String)}; code
+ * deeper in the engine adds to the file of its thread through the static
+ * {@link #lap(Phase)}, {@link #tip()} and {@link #nodes(int)}, which do
+ * nothing when no file is being timed. Threads which process parts of the
+ * file of another thread count into {@link Parts}, which are then added to
+ * the file.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class RunStatistics {
+  /** Phases of processing a file */
+  public enum Phase {
+    READ, PARSE, TIP, REWRITE, METRICS, WRITE
+  }
+
+  /** The file being timed by each thread */
+  private static final ThreadLocal<Timing> current = new ThreadLocal<>();
+
+  /** Charges the time since the last lap of the current file to a phase
+   * @param ¢ JD */
+  public static void lap(final Phase ¢) {
+    final Timing t = current.get();
+    if (t != null)
+      t.lap(¢);
+  }
+
+  /** Counts a tip applied to the current file */
+  public static void tip() {
+    final Timing t = current.get();
+    if (t != null)
+      ++t.tips;
+  }
+
+  /** @param ¢ number of nodes processed in the current file */
+  public static void nodes(final int ¢) {
+    final Timing t = current.get();
+    if (t != null)
+      t.nodes += ¢;
+  }
+
+  /** @return parts of the file timed by the calling thread, to be processed
+   *         by other threads */
+  public static Parts parts() {
+    return new Parts(current.get());
+  }
+
+  /** The time, nodes and tips of parts of a file, processed by threads other
+   * than the one timing it, e.g., when its members are trimmed in parallel.
+   * The time of each part is charged to phases as usual, but parts overlap;
+   * hence, {@link #join()} charges the wall time they took, split among the
+   * phases in the proportions of their total. */
+  public static final class Parts {
+    /** The file the parts belong to, or <code><b>null</b></code> if none is
+     * being timed */
+    private final Timing file;
+    private final long[] phases = new long[Phase.values().length];
+    private int nodes;
+    private int tips;
+
+    Parts(final Timing file) {
+      this.file = file;
+    }
+
+    /** Runs a part in the calling thread, counting into a part of its own
+     * @param s JD
+     * @return what the parameter returned */
+    public <T> T run(final Supplier<T> s) {
+      if (file == null)
+        return s.get();
+      final Timing previous = current.get(), $ = new Timing(file.name);
+      current.set($);
+      try {
+        return s.get();
+      } finally {
+        if (previous == null)
+          current.remove();
+        else
+          current.set(previous);
+        add($);
+      }
+    }
+
+    private synchronized void add(final Timing t) {
+      for (int ¢ = 0; ¢ < phases.length; ++¢)
+        phases[¢] += t.phases[¢];
+      nodes += t.nodes;
+      tips += t.tips;
+    }
+
+    /** Adds the parts run so far to their file; called by the thread which
+     * times it, once the parts are done */
+    public synchronized void join() {
+      if (file == null)
+        return;
+      final long now = System.nanoTime(), wall = now - file.last;
+      long sum = 0;
+      for (final long ¢ : phases)
+        sum += ¢;
+      if (sum == 0)
+        file.phases[Phase.TIP.ordinal()] += wall;
+      else
+        for (int ¢ = 0; ¢ < phases.length; ++¢)
+          file.phases[¢] += Math.round((double) wall * phases[¢] / sum);
+      file.last = now;
+      file.nodes += nodes;
+      file.tips += tips;
+    }
+  }
+
+  private final Histogram total = new Histogram();
+  private final Histogram[] phases = new Histogram[Phase.values().length];
+  private final PriorityQueue<Timing> slowest = new PriorityQueue<>(Comparator.comparingLong(x -> x.total));
+  private final int keep;
+  private final long interval;
+  private final long start = System.nanoTime();
+  private final List<long[]> samples = new ArrayList<>();
+  /** Files whose deadline expired, each with the reason */
+  private final Map<String, Deadline.Expired> expired = new LinkedHashMap<>();
+  private long sampled = start;
+  private long files, nodes, tips;
+  private long sampledFiles, sampledNodes, sampledTips;
+
+  /** Instantiates this class, keeping the 100 slowest files, and sampling
+   * throughput every ten seconds */
+  public RunStatistics() {
+    this(100, 10);
+  }
+
+  /** @param keep how many of the slowest files to keep
+   * @param seconds time between samples of throughput */
+  public RunStatistics(final int keep, final int seconds) {
+    this.keep = keep;
+    interval = seconds * 1_000_000_000L;
+    for (int ¢ = 0; ¢ < phases.length; ++¢)
+      phases[¢] = new Histogram();
+  }
+
+  /** Starts timing a file, in the calling thread, which also names it in the
+   * {@link Events} of the thread
+   * @param name JD */
+  public void begin(final String name) {
+    current.set(new Timing(name));
+    Events.file(name);
+  }
+
+  /** Ends timing the file of the calling thread; time since its last lap is
+   * not charged to any phase */
+  public void end() {
+    final Timing t = current.get();
+    if (t == null)
+      return;
+    current.remove();
+    t.total = System.nanoTime() - t.start;
+    record(t);
+  }
+
+  private synchronized void record(final Timing t) {
+    total.add(t.total);
+    for (int ¢ = 0; ¢ < phases.length; ++¢)
+      if (t.phases[¢] > 0)
+        phases[¢].add(t.phases[¢]);
+    slowest.add(t);
+    if (slowest.size() > keep)
+      slowest.poll();
+    ++files;
+    nodes += t.nodes;
+    tips += t.tips;
+    final long now = System.nanoTime();
+    if (now - sampled < interval)
+      return;
+    final double seconds = (now - sampled) / 1E9;
+    samples.add(new long[] { (now - start) / 1_000_000_000L, Math.round((files - sampledFiles) / seconds),
+        Math.round((nodes - sampledNodes) / seconds), Math.round((tips - sampledTips) / seconds) });
+    sampled = now;
+    sampledFiles = files;
+    sampledNodes = nodes;
+    sampledTips = tips;
+  }
+
+  public synchronized long files() {
+    return files;
+  }
+
+  /** Records a file which was not completed in its budget
+   * @param name JD
+   * @param x JD */
+  public synchronized void expired(final String name, final Deadline.Expired x) {
+    expired.put(name, x);
+  }
+
+  public synchronized int expired() {
+    return expired.size();
+  }
+
+  /** @return percentiles of the time per file, overall and in each phase,
+   *         and throughput over the entire run */
+  public synchronized String summary() {
+    final double seconds = (System.nanoTime() - start) / 1E9;
+    final StringBuilder $ = new StringBuilder(String.format("%d files in %.1fs: %.1f files/s, %.0f nodes/s, %.0f tips/s\n", Long.valueOf(files),
+        Double.valueOf(seconds), Double.valueOf(files / seconds), Double.valueOf(nodes / seconds), Double.valueOf(tips / seconds)));
+    $.append(String.format("%-8s %8s %10s %10s %10s %10s\n", "phase", "files", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+    for (final Phase ¢ : Phase.values())
+      $.append(phases[¢.ordinal()].line(¢.name().toLowerCase()));
+    $.append(total.line("total"));
+    if (!expired.isEmpty())
+      $.append(expired.size() + " files exceeded their budget\n");
+    return $ + "";
+  }
+
+  /** Writes <code>prefix.slowest.csv</code>, the slowest files, slowest
+   * first, with the time of each phase, and
+   * <code>prefix.throughput.csv</code>, the samples of throughput
+   * @param prefix JD */
+  public synchronized void write(final String prefix) {
+    try (PrintWriter w = new PrintWriter(new FileWriter(prefix + ".slowest.csv"))) {
+      w.print("file,total ms");
+      for (final Phase ¢ : Phase.values())
+        w.print("," + ¢.name().toLowerCase() + " ms");
+      w.println(",nodes,tips");
+      final List<Timing> ts = new ArrayList<>(slowest);
+      ts.sort(Comparator.comparingLong((final Timing x) -> x.total).reversed());
+      for (final Timing t : ts) {
+        w.print(t.name.replace(',', ';') + "," + millis(t.total));
+        for (final long ¢ : t.phases)
+          w.print("," + millis(¢));
+        w.println("," + t.nodes + "," + t.tips);
+      }
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "File = " + prefix + ".slowest.csv");
+    }
+    if (!expired.isEmpty())
+      try (PrintWriter w = new PrintWriter(new FileWriter(prefix + ".expired.csv"))) {
+        w.println("file,ms,tipper,reason");
+        for (final Map.Entry<String, Deadline.Expired> ¢ : expired.entrySet())
+          w.println(¢.getKey().replace(',', ';') + "," + ¢.getValue().millis + "," + ¢.getValue().tipper + ","
+              + ¢.getValue().getMessage().replace(',', ';'));
+      } catch (final IOException x) {
+        monitor.infoIOException(x, "File = " + prefix + ".expired.csv");
+      }
+    try (PrintWriter w = new PrintWriter(new FileWriter(prefix + ".throughput.csv"))) {
+      w.println("seconds,files/s,nodes/s,tips/s");
+      for (final long[] ¢ : samples)
+        w.println(¢[0] + "," + ¢[1] + "," + ¢[2] + "," + ¢[3]);
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "File = " + prefix + ".throughput.csv");
+    }
+  }
+
+  @Override public String toString() {
+    return summary();
+  }
+
+  static String millis(final long nanos) {
+    return String.format("%.3f", Double.valueOf(nanos / 1E6));
+  }
+
+  /** Time taken by one file */
+  private static final class Timing {
+    final String name;
+    final long start = System.nanoTime();
+    final long[] phases = new long[Phase.values().length];
+    long last = start;
+    long total;
+    int nodes;
+    int tips;
+
+    Timing(final String name) {
+      this.name = name;
+    }
+
+    void lap(final Phase p) {
+      final long now = System.nanoTime();
+      phases[p.ordinal()] += now - last;
+      last = now;
+    }
+  }
+
+  /** A histogram of durations, in nanoseconds, with eight buckets for each
+   * power of two, so that percentiles are off by at most an eighth */
+  static final class Histogram {
+    private static final int SUB = 8;
+    private final long[] buckets = new long[64 * SUB];
+    private long count;
+    private long max;
+
+    void add(final long nanos) {
+      final long v = Math.max(1, nanos);
+      ++buckets[index(v)];
+      ++count;
+      max = Math.max(max, v);
+    }
+
+    long count() {
+      return count;
+    }
+
+    long max() {
+      return max;
+    }
+
+    /** @param q a fraction, e.g., 0.95
+     * @return a value which at least this fraction of the values do not
+     *         exceed */
+    long percentile(final double q) {
+      final long target = Math.max(1, (long) Math.ceil(q * count));
+      long seen = 0;
+      for (int ¢ = 0; ¢ < buckets.length; ++¢)
+        if ((seen += buckets[¢]) >= target)
+          return Math.min(max, Math.max(lower(¢), lower(¢ + 1) - 1));
+      return max;
+    }
+
+    String line(final String name) {
+      return String.format("%-8s %8d %10s %10s %10s %10s\n", name, Long.valueOf(count), millis(percentile(0.5)), millis(percentile(0.95)),
+          millis(percentile(0.99)), millis(max));
+    }
+
+    static int index(final long v) {
+      final int exponent = 63 - Long.numberOfLeadingZeros(v);
+      return exponent * SUB + (int) ((exponent < 3 ? v << 3 - exponent : v >>> exponent - 3) & SUB - 1);
+    }
+
+    /** @return the smallest value in a bucket */
+    static long lower(final int index) {
+      final int exponent = index / SUB;
+      return exponent < 3 ? (SUB + index % SUB) >>> 3 - exponent : (long) (SUB + index % SUB) << exponent - 3;
+    }
+  }
+}
@@ -84,26 +84,29 @@ public class Spartanizer$Applicator {
 
   boolean go(final ASTNode input) {
     tippersAppliedOnCurrentObject = 0;
+    final String in = input + "";
     final int length = input.getLength();
-    final int tokens = metrics.tokens(input + "");
+    final int tokens = metrics.tokens(in);
     final int nodes = count.nodes(input);
     final int body = metrics.bodySize(input);
     final int statements = extract.statements(az.methodDeclaration(input).getBody()).size();
-    final int tide = clean(input + "").length();
-    final int essence = Essence.of(input + "").length();
-    final String out = fixedPoint(input + "");
+    final int tide = clean(in).length();
+    final int essence = Essence.of(in).length();
+    final Document d = new Document(in);
+    final ASTNode to = fixedPoint(d);
+    final String out = d.get();
     final int length2 = out.length();
     final int tokens2 = metrics.tokens(out);
-    final int tide2 = clean(out + "").length();
-    final int essence2 = Essence.of(out + "").length();
-    final int wordCount = code.wc(il.org.spartan.spartanizer.cmdline.Essence.of(out + ""));
-    final ASTNode to = makeAST.CLASS_BODY_DECLARATIONS.from(out);
+    final int tide2 = clean(out).length();
+    final String essenced = Essence.of(out);
+    final int essence2 = essenced.length();
+    final int wordCount = code.wc(essenced);
     final int nodes2 = count.nodes(to);
     final int body2 = metrics.bodySize(to);
     final MethodDeclaration methodDeclaration = az.methodDeclaration(to);
     final int statements2 = methodDeclaration == null ? -1 : extract.statements(methodDeclaration.getBody()).size();
     System.err.println(++done + " " + extract.category(input) + " " + extract.name(input));
-    befores.print(input);
+    befores.print(in);
     afters.print(out);
     report.summaryFileName();
     report//
@@ -156,21 +159,25 @@ public class Spartanizer$Applicator {
     return false;
   }
 
-  /** @param input
-   * @return */
-  private String fixedPoint(final String from) {
-    for (final Document $ = new Document(from);;) {
-      final BodyDeclaration u = (BodyDeclaration) makeAST.CLASS_BODY_DECLARATIONS.from($.get());
-      final ASTRewrite r = createRewrite(u);
-      final TextEdit e = r.rewriteAST($, null);
+  /** Trims body declarations repeatedly, until no more changes
+   * @param d the text of the body declarations, trimmed in place; it is
+   *        parsed on its own, so the tree it was taken from is not touched
+   * @return the tree parsed in the last round, which represents the final
+   *         content of the document, and may be measured instead of parsing
+   *         it once again */
+  BodyDeclaration fixedPoint(final Document d) {
+    for (;;) {
+      final BodyDeclaration $ = (BodyDeclaration) makeAST.CLASS_BODY_DECLARATIONS.from(d.get());
+      final ASTRewrite r = createRewrite($);
+      final TextEdit e = r.rewriteAST(d, null);
       try {
-        e.apply($);
+        e.apply(d);
       } catch (final MalformedTreeException | IllegalArgumentException | BadLocationException x) {
         monitor.logEvaluationError(this, x);
         throw new AssertionError(x);
       }
       if (!e.hasChildren())
-        return $.get();
+        return $;
     }
   }
 
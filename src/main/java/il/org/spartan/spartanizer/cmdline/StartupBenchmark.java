@@ -0,0 +1,52 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+
+import il.org.spartan.spartanizer.dispatch.*;
+import il.org.spartan.spartanizer.engine.*;
+
+/** Measures the time to the first tip, in a fresh JVM, through the command
+ * line path ({@link InteractiveSpartanizer}) and through the plug-in path
+ * ({@link Trimmer#collectSuggesions(CompilationUnit)}). Each measurement
+ * starts a JVM of its own, so it is run by hand, rather than by the unit
+ * tests.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class StartupBenchmark {
+  private static final String CODE = "class A { int f(int a) { int b = a + 1; return b; } }";
+
+  /** Without arguments, prints the time to the first tip of each path; with
+   * <code>cli</code> or <code>plugin</code>, run in a fresh JVM, prints the
+   * milliseconds since the JVM started until the first tip of that path was
+   * found
+   * @param args JD
+   * @throws IOException
+   * @throws InterruptedException */
+  public static void main(final String[] args) throws IOException, InterruptedException {
+    if (args.length == 0) {
+      System.out.println("Time to first tip: command line " + timeToFirstTip("cli") + "ms, plug-in " + timeToFirstTip("plugin") + "ms");
+      return;
+    }
+    if ("plugin".equals(args[0]) ? new Trimmer().collectSuggesions((CompilationUnit) makeAST.COMPILATION_UNIT.from(CODE)).isEmpty()
+        : CODE.equals(new InteractiveSpartanizer().fixedPoint(CODE)))
+      System.exit(1);
+    System.out.println(System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+  }
+
+  private static long timeToFirstTip(final String path) throws IOException, InterruptedException {
+    final Process p = new ProcessBuilder(new File(System.getProperty("java.home"), "bin/java") + "", "-cp", System.getProperty("java.class.path"),
+        StartupBenchmark.class.getName(), path).redirectErrorStream(true).start();
+    final List<String> lines = new ArrayList<>();
+    try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream()))) {
+      for (String ¢ = r.readLine(); ¢ != null; ¢ = r.readLine())
+        lines.add(¢);
+    }
+    if (p.waitFor() != 0 || lines.isEmpty())
+      throw new IOException("No tip on the " + path + " path: " + lines);
+    return Long.parseLong(lines.get(lines.size() - 1).trim());
+  }
+}
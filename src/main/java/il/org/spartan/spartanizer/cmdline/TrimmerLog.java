@@ -8,10 +8,12 @@ import org.eclipse.jdt.core.dom.rewrite.*;
 import static il.org.spartan.spartanizer.ast.navigate.step.*;
 
 import il.org.spartan.*;
+import il.org.spartan.plugin.*;
 import il.org.spartan.spartanizer.engine.*;
 import il.org.spartan.spartanizer.tipping.*;
 
-/** Logging stuff
+/** Logging stuff; messages go to {@link Log}, at {@link Log.Level#TRACE},
+ * and nothing is made, or counted, unless this level is on
  * @author Yossi Gil
  * @year 2016 */
 public class TrimmerLog {
@@ -19,29 +21,31 @@ public class TrimmerLog {
   private static int maxVisitations = 30;
   private static int maxTips = 20;
   private static int maxApplications = 10;
-  private static boolean logToScreen = true; // default output
   private static boolean logToFile;
   private static String outputDir = "/tmp/trimmerlog-output.CSV";
   private static String fileName;
 
   public static void activateLogToFile() {
     logToFile = true;
+    Log.level(Log.Level.TRACE);
   }
 
   public static void activateLogToScreen() {
-    logToScreen = true;
+    Log.level(Log.Level.TRACE);
+    Log.echo(true);
   }
 
   public static void application(final ASTRewrite r, final Tip t) {
-    if (--maxApplications <= 0) {
+    RunStatistics.tip();
+    if (!Log.on(Log.Level.TRACE) || --maxApplications <= 0) {
       if (maxApplications == 0)
-        System.out.println("Stopped logging applications");
+        Log.log(Log.Level.TRACE, "Stopped logging applications");
       t.go(r, null);
       return;
     }
-    System.out.println("      Before: " + r);
+    Log.log(Log.Level.TRACE, "      Before: " + r);
     t.go(r, null);
-    System.out.println("       After: " + r);
+    Log.log(Log.Level.TRACE, "       After: " + r);
   }
 
   public static int getMaxApplications() {
@@ -77,9 +81,9 @@ public class TrimmerLog {
   }
 
   public static <N extends ASTNode> void tip(final Tipper<N> w, final N n) throws TipperFailure {
-    if (--maxTips <= 0) {
+    if (!Log.on(Log.Level.TRACE) || --maxTips <= 0) {
       if (maxTips == 0)
-        System.out.println("Stopped logging tips");
+        Log.log(Log.Level.TRACE, "Stopped logging tips");
       return;
     }
     if (logToFile) {
@@ -93,22 +97,22 @@ public class TrimmerLog {
       output.put("Suggests", w.tip(n));
       output.nl();
     }
-    if (!logToScreen || !logToScreen)
-      return;
-    System.out.println("        File: " + fileName);
-    System.out.println("       Tipper: " + clazz(w));
-    System.out.println("       Named: " + w.description());
-    System.out.println("        Kind: " + w.tipperGroup());
-    System.out.println("   Described: " + w.description(n));
-    System.out.println(" Can tip: " + w.canTip(n));
-    System.out.println("    Suggests: " + w.tip(n));
+    Log.log(Log.Level.TRACE, "        File: " + fileName);
+    Log.log(Log.Level.TRACE, "       Tipper: " + clazz(w));
+    Log.log(Log.Level.TRACE, "       Named: " + w.description());
+    Log.log(Log.Level.TRACE, "        Kind: " + w.tipperGroup());
+    Log.log(Log.Level.TRACE, "   Described: " + w.description(n));
+    Log.log(Log.Level.TRACE, " Can tip: " + w.canTip(n));
+    Log.log(Log.Level.TRACE, "    Suggests: " + w.tip(n));
   }
 
   public static void visitation(final ASTNode ¢) {
+    if (!Log.on(Log.Level.TRACE))
+      return;
     if (--maxVisitations > 0)
-      System.out.println("VISIT: '" + tide.clean(¢ + "") + "' [" + ¢.getLength() + "] (" + clazz(¢) + ")" + " parent = " + clazz(parent(¢)));
+      Log.log(Log.Level.TRACE, "VISIT: '" + tide.clean(¢ + "") + "' [" + ¢.getLength() + "] (" + clazz(¢) + ")" + " parent = " + clazz(parent(¢)));
     else if (maxVisitations == 0)
-      System.out.println("Stopped logging visitations");
+      Log.log(Log.Level.TRACE, "Stopped logging visitations");
   }
 
   private static String clazz(final Object n) {
@@ -0,0 +1,133 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+/** An empty <code><b>enum</b></code> for fluent programming, making the
+ * unified diff of a type before and after spartanization, so that outputs
+ * hold only what changed, rather than the entire text, twice.
+ * <p>
+ * Lines common to the start and to the end are skipped first, so the cost is
+ * linear when changes are local, which is the usual case; the lines between
+ * are matched by their longest common subsequence, unless there are too many
+ * of them, in which case they are all replaced.
+ * @author Yossi Gil
+ * @since 2016 */
+public enum UnifiedDiff {
+  ;
+  /** Number of unchanged lines shown around each change */
+  static final int CONTEXT = 3;
+  /** Largest table of common subsequences computed */
+  static final long CELLS = 1 << 22;
+  /** Ends the last line of a text which does not end with a newline; the line
+   * then differs from the same line ended by a newline, and is followed by
+   * the marker <code>patch</code> expects */
+  static final String NO_NEWLINE = "\n\\ No newline at end of file";
+
+  /** @param name how to name the type in the header of the diff
+   * @param before JD
+   * @param after JD
+   * @return the unified diff of the two texts, or the empty string if they
+   *         are equal */
+  public static String of(final String name, final String before, final String after) {
+    return before.equals(after) ? "" : hunks(name, script(lines(before), lines(after)));
+  }
+
+  /** @param text JD
+   * @return the lines of the text, without their newlines; a newline which
+   *         ends the text does not start another line, and a last line which
+   *         has none ends with {@link #NO_NEWLINE} */
+  static String[] lines(final String text) {
+    if (text.isEmpty())
+      return new String[0];
+    final String[] $ = text.split("\n", -1);
+    if (text.endsWith("\n"))
+      return Arrays.copyOf($, $.length - 1);
+    $[$.length - 1] += NO_NEWLINE;
+    return $;
+  }
+
+  /** @param fileName JD
+   * @param gzip whether to compress
+   * @return a writer to this file
+   * @throws IOException */
+  @SuppressWarnings("resource") public static PrintWriter writer(final String fileName, final boolean gzip) throws IOException {
+    final OutputStream $ = new FileOutputStream(fileName);
+    return new PrintWriter(new BufferedWriter(new OutputStreamWriter(gzip ? new GZIPOutputStream($) : $, UTF_8)));
+  }
+
+  /** @return the lines of both texts, each prefixed by <code>' '</code> if it
+   *         is in both, <code>'-'</code> if only in the first, and
+   *         <code>'+'</code> if only in the second */
+  static List<String> script(final String[] a, final String[] b) {
+    int prefix = 0;
+    while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix]))
+      ++prefix;
+    int suffix = 0;
+    while (suffix < a.length - prefix && suffix < b.length - prefix && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix]))
+      ++suffix;
+    final List<String> $ = new ArrayList<>();
+    for (int ¢ = 0; ¢ < prefix; ++¢)
+      $.add(" " + a[¢]);
+    middle(Arrays.copyOfRange(a, prefix, a.length - suffix), Arrays.copyOfRange(b, prefix, b.length - suffix), $);
+    for (int ¢ = a.length - suffix; ¢ < a.length; ++¢)
+      $.add(" " + a[¢]);
+    return $;
+  }
+
+  private static void middle(final String[] a, final String[] b, final List<String> $) {
+    final int n = a.length, m = b.length;
+    if ((long) n * m > CELLS) {
+      for (final String ¢ : a)
+        $.add("-" + ¢);
+      for (final String ¢ : b)
+        $.add("+" + ¢);
+      return;
+    }
+    final int[][] common = new int[n + 1][m + 1];
+    for (int i = n - 1; i >= 0; --i)
+      for (int j = m - 1; j >= 0; --j)
+        common[i][j] = a[i].equals(b[j]) ? common[i + 1][j + 1] + 1 : Math.max(common[i + 1][j], common[i][j + 1]);
+    for (int i = 0, j = 0; i < n || j < m;)
+      if (i < n && j < m && a[i].equals(b[j])) {
+        $.add(" " + a[i++]);
+        ++j;
+      } else if (i < n && (j == m || common[i + 1][j] >= common[i][j + 1]))
+        $.add("-" + a[i++]);
+      else
+        $.add("+" + b[j++]);
+  }
+
+  private static String hunks(final String name, final List<String> script) {
+    final int[] olds = new int[script.size() + 1], news = new int[script.size() + 1];
+    for (int ¢ = 0; ¢ < script.size(); ++¢) {
+      final char c = script.get(¢).charAt(0);
+      olds[¢ + 1] = olds[¢] + (c == '+' ? 0 : 1);
+      news[¢ + 1] = news[¢] + (c == '-' ? 0 : 1);
+    }
+    final StringBuilder $ = new StringBuilder("--- a/").append(name).append("\n+++ b/").append(name).append('\n');
+    for (int i = 0; i < script.size();) {
+      if (script.get(i).charAt(0) == ' ') {
+        ++i;
+        continue;
+      }
+      int last = i;
+      for (int j = i + 1; j < script.size() && j - last <= 2 * CONTEXT; ++j)
+        if (script.get(j).charAt(0) != ' ')
+          last = j;
+      final int from = Math.max(0, i - CONTEXT), to = Math.min(script.size(), last + 1 + CONTEXT);
+      $.append("@@ -").append(range(olds[from], olds[to] - olds[from])).append(" +").append(range(news[from], news[to] - news[from])).append(" @@\n");
+      for (int ¢ = from; ¢ < to; ++¢)
+        $.append(script.get(¢)).append('\n');
+      i = to;
+    }
+    return $ + "";
+  }
+
+  private static String range(final int start, final int length) {
+    return length == 0 ? start + ",0" : start + 1 + "," + length;
+  }
+}
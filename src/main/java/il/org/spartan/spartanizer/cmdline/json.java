@@ -0,0 +1,224 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import java.util.*;
+
+/** Just enough of JSON for a line oriented protocol: {@link #parse(String)}
+ * reads a value into {@link Map}s, {@link List}s, {@link String}s,
+ * {@link Double}s and {@link Boolean}s, and {@link #write(Object)} writes such a
+ * value (and also any {@link Number}) on a single line.
+ * @author Yossi Gil
+ * @since 2016 */
+public enum json {
+  ;
+  /** @param ¢ JSON text
+   * @return the value it denotes
+   * @throws IllegalArgumentException if the text is not well formed */
+  public static Object parse(final String ¢) {
+    final Reader $ = new Reader(¢);
+    final Object value = $.value();
+    $.skipWhites();
+    if ($.position != ¢.length())
+      throw $.error("end of input");
+    return value;
+  }
+
+  /** @param ¢ a {@link Map}, {@link Iterable}, {@link String}, {@link Number},
+   *        {@link Boolean} or <code><b>null</b></code>
+   * @return its JSON text, with no line breaks */
+  public static String write(final Object ¢) {
+    return write(¢, new StringBuilder()) + "";
+  }
+
+  private static StringBuilder write(final Object o, final StringBuilder $) {
+    if (o == null)
+      return $.append("null");
+    if (o instanceof Boolean)
+      return $.append(o);
+    if (o instanceof Number)
+      return $.append(o instanceof Double && ((Double) o).doubleValue() == Math.rint(((Double) o).doubleValue())
+          ? Long.valueOf(((Double) o).longValue()) : o);
+    if (o instanceof Map) {
+      $.append('{');
+      String separator = "";
+      for (final Map.Entry<?, ?> ¢ : ((Map<?, ?>) o).entrySet()) {
+        write(¢.getKey() + "", $.append(separator)).append(':');
+        write(¢.getValue(), $);
+        separator = ",";
+      }
+      return $.append('}');
+    }
+    if (o instanceof Iterable) {
+      $.append('[');
+      String separator = "";
+      for (final Object ¢ : (Iterable<?>) o) {
+        write(¢, $.append(separator));
+        separator = ",";
+      }
+      return $.append(']');
+    }
+    $.append('"');
+    for (final char ¢ : (o + "").toCharArray())
+      switch (¢) {
+        case '"':
+          $.append("\\\"");
+          break;
+        case '\\':
+          $.append("\\\\");
+          break;
+        case '\n':
+          $.append("\\n");
+          break;
+        case '\r':
+          $.append("\\r");
+          break;
+        case '\t':
+          $.append("\\t");
+          break;
+        default:
+          if (¢ >= ' ')
+            $.append(¢);
+          else
+            $.append(String.format("\\u%04x", Integer.valueOf(¢)));
+      }
+    return $.append('"');
+  }
+
+  private static final class Reader {
+    final String text;
+    int position;
+
+    Reader(final String text) {
+      this.text = text;
+    }
+
+    IllegalArgumentException error(final String expected) {
+      return new IllegalArgumentException("JSON: expected " + expected + " at offset " + position);
+    }
+
+    void skipWhites() {
+      while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+        ++position;
+    }
+
+    boolean eat(final char ¢) {
+      skipWhites();
+      if (position >= text.length() || text.charAt(position) != ¢)
+        return false;
+      ++position;
+      return true;
+    }
+
+    void expect(final char ¢) {
+      if (!eat(¢))
+        throw error("'" + ¢ + "'");
+    }
+
+    Object value() {
+      skipWhites();
+      if (position >= text.length())
+        throw error("a value");
+      final char c = text.charAt(position);
+      if (c == '{')
+        return object();
+      if (c == '[')
+        return array();
+      if (c == '"')
+        return string();
+      if (text.startsWith("true", position))
+        return word("true", Boolean.TRUE);
+      if (text.startsWith("false", position))
+        return word("false", Boolean.FALSE);
+      if (text.startsWith("null", position))
+        return word("null", null);
+      return number();
+    }
+
+    Object word(final String word, final Object $) {
+      position += word.length();
+      return $;
+    }
+
+    Map<String, Object> object() {
+      expect('{');
+      final Map<String, Object> $ = new LinkedHashMap<>();
+      if (eat('}'))
+        return $;
+      do {
+        skipWhites();
+        final String key = string();
+        expect(':');
+        $.put(key, value());
+      } while (eat(','));
+      expect('}');
+      return $;
+    }
+
+    List<Object> array() {
+      expect('[');
+      final List<Object> $ = new ArrayList<>();
+      if (eat(']'))
+        return $;
+      do
+        $.add(value());
+      while (eat(','));
+      expect(']');
+      return $;
+    }
+
+    String string() {
+      if (position >= text.length() || text.charAt(position) != '"')
+        throw error("a string");
+      final StringBuilder $ = new StringBuilder();
+      for (++position; position < text.length();) {
+        final char c = text.charAt(position++);
+        if (c == '"')
+          return $ + "";
+        if (c != '\\') {
+          $.append(c);
+          continue;
+        }
+        if (position >= text.length())
+          break;
+        final char e = text.charAt(position++);
+        switch (e) {
+          case 'n':
+            $.append('\n');
+            break;
+          case 'r':
+            $.append('\r');
+            break;
+          case 't':
+            $.append('\t');
+            break;
+          case 'b':
+            $.append('\b');
+            break;
+          case 'f':
+            $.append('\f');
+            break;
+          case 'u':
+            if (position + 4 > text.length())
+              throw error("four hex digits");
+            $.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+            position += 4;
+            break;
+          default:
+            $.append(e);
+        }
+      }
+      throw error("'\"'");
+    }
+
+    Double number() {
+      final int start = position;
+      while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0)
+        ++position;
+      try {
+        return Double.valueOf(text.substring(start, position));
+      } catch (final NumberFormatException x) {
+        position = start;
+        throw error("a value");
+      }
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import il.org.spartan.spartanizer.tipping.*;
+
+/** A cooperative time budget for processing one file, set for the calling
+ * thread by {@link #start(long, long)}. Every {@link DispatchingVisitor}
+ * made while it is set checks it as it visits nodes, and {@link Trimmer}
+ * checks it between rounds, and after each call to {@link Tipper#tip}; when
+ * the budget of the file, or of a single call to a tipper, is exceeded,
+ * {@link Expired} is thrown, naming the tipper which ran last. Nothing bounds
+ * the processing of threads which have no deadline.
+ * <p>
+ * Visitors look at the clock only once every {@link #PERIOD} nodes, so that
+ * inputs which are well within their budget pay almost nothing.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class Deadline {
+  /** Number of nodes visited between consecutive looks at the clock */
+  static final int PERIOD = 256;
+  private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+  /** Thrown when a deadline is exceeded */
+  public static final class Expired extends RuntimeException {
+    static final long serialVersionUID = 1L;
+    /** The tipper which ran last, or <code><b>null</b></code> */
+    public final String tipper;
+    /** Time spent on the file, in milliseconds */
+    public final long millis;
+
+    Expired(final String what, final String tipper, final long millis) {
+      super(what + " after " + millis + "ms" + (tipper == null ? "" : ", last tipper = " + tipper));
+      this.tipper = tipper;
+      this.millis = millis;
+    }
+  }
+
+  /** Sets a deadline for the calling thread, replacing its previous one
+   * @param fileMillis budget of the file, or 0 for none
+   * @param tipperMillis budget of each call to a tipper, or 0 for none
+   * @return the new deadline */
+  public static Deadline start(final long fileMillis, final long tipperMillis) {
+    final Deadline $ = new Deadline(fileMillis, tipperMillis);
+    current.set($);
+    return $;
+  }
+
+  /** Removes the deadline of the calling thread */
+  public static void stop() {
+    current.remove();
+  }
+
+  /** Sets the deadline of the calling thread to that of another thread, whose
+   * work it shares; the two then race on the counter of nodes, which only
+   * makes the clock be looked at a little more, or less, often
+   * @param ¢ JD, or <code><b>null</b></code> for none
+   * @return the previous deadline of the calling thread */
+  public static Deadline adopt(final Deadline ¢) {
+    final Deadline $ = current.get();
+    if (¢ == null)
+      current.remove();
+    else
+      current.set(¢);
+    return $;
+  }
+
+  /** @return the deadline of the calling thread, or <code><b>null</b></code>
+   *         if it has none */
+  public static Deadline current() {
+    return current.get();
+  }
+
+  private final long start = System.nanoTime();
+  private final long fileNanos;
+  private final long tipperNanos;
+  private int countdown = PERIOD;
+  private String tipper;
+
+  private Deadline(final long fileMillis, final long tipperMillis) {
+    fileNanos = fileMillis <= 0 ? Long.MAX_VALUE : fileMillis * 1_000_000;
+    tipperNanos = tipperMillis <= 0 ? Long.MAX_VALUE : tipperMillis * 1_000_000;
+  }
+
+  /** Called for each node visited; looks at the clock once in a while */
+  public void tick() {
+    if (--countdown > 0)
+      return;
+    countdown = PERIOD;
+    check();
+  }
+
+  /** @throws Expired if the budget of the file was exceeded */
+  public void check() {
+    final long now = System.nanoTime();
+    if (now - start > fileNanos)
+      throw new Expired("File budget exceeded", tipper, millis(now));
+  }
+
+  /** Called after each call to a tipper
+   * @param t the tipper
+   * @param since {@link System#nanoTime()} before the call
+   * @throws Expired if the call, or the file, exceeded its budget */
+  public void tipped(final Tipper<?> t, final long since) {
+    tipper = t.myName();
+    final long now = System.nanoTime();
+    if (now - since > tipperNanos)
+      throw new Expired("Tipper budget exceeded", tipper, millis(now));
+    if (now - start > fileNanos)
+      throw new Expired("File budget exceeded", tipper, millis(now));
+  }
+
+  private long millis(final long now) {
+    return (now - start) / 1_000_000;
+  }
+}
@@ -12,6 +12,8 @@ import org.eclipse.jdt.core.dom.*;
  * @see ExclusionManager */
 public abstract class DispatchingVisitor extends ASTVisitor {
   public final ExclusionManager exclude = new ExclusionManager();
+  /** The deadline of the thread which made this instance, if any */
+  private final Deadline deadline = Deadline.current();
   private boolean initialized;
 
   @Override public void preVisit(final ASTNode ¢) {
@@ -126,6 +128,8 @@ public abstract class DispatchingVisitor extends ASTVisitor {
   }
 
   protected boolean cautiousGo(final ASTNode ¢) {
+    if (deadline != null)
+      deadline.tick();
     return !exclude.isExcluded(¢) && go(¢);
   }
 
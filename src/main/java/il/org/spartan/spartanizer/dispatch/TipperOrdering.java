@@ -0,0 +1,215 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.eclipse.jdt.core.dom.*;
+
+import il.org.spartan.plugin.*;
+import il.org.spartan.spartanizer.tipping.*;
+
+/** The order in which an adaptive {@link Toolbox} tries the tippers of one
+ * type of nodes. The declared order is kept, except in runs of consecutive
+ * tippers which were declared, by {@link Toolbox#disjoint(Class...)}, to never
+ * tip the same node; since at most one of these may tip a node, their order
+ * does not change the tipper found, only the cost of finding it.
+ * <p>
+ * Once in every {@link #sampling} calls, all tippers of each run are tried,
+ * and the time and outcome of each is recorded; once in every
+ * {@link #resorting} such samples, the runs are sorted by decreasing ratio of
+ * hits to time, which minimizes the expected time to the first hit of
+ * tippers of which at most one hits. Other calls try the tippers in the
+ * current order, and measure nothing. If a sample finds that two tippers of a
+ * run tip the same node, the declaration is wrong; the run is then logged,
+ * and the declared order is restored, for good. Once {@link #settle(boolean)}
+ * is called, the order no longer changes, and nothing is measured.
+ * <p>
+ * The order, and whether samples are still made, are a single {@link State},
+ * which a sort replaces, by a compare and set, only while samples are still
+ * made; hence a sort which ends after a sample found an overlap, or after
+ * {@link #settle(boolean)}, never overwrites the order these set.
+ * @author Yossi Gil
+ * @since 2016 */
+final class TipperOrdering {
+  /** Tippers in their declared order */
+  private final Tipper<?>[] declared;
+  /** Index past the end of the run starting at each index, or 0 where no run
+   * starts */
+  private final int[] runs;
+  /** Hits, and nanoseconds spent in {@link Tipper#canTip}, of each tipper,
+   * by its declared index; counted in samples only */
+  private final LongAdder[] hits, nanos;
+  private final int sampling, resorting;
+  private final AtomicInteger samples = new AtomicInteger();
+  private final AtomicReference<State> state;
+
+  /** The order in which tippers are tried, and whether calls still sample */
+  private static final class State {
+    final Tipper<?>[] order;
+    final boolean measuring;
+
+    State(final Tipper<?>[] order, final boolean measuring) {
+      this.order = order;
+      this.measuring = measuring;
+    }
+  }
+
+  /** @param declared JD
+   * @param runs as computed by {@link #runs(List, List)}
+   * @param sampling one in how many calls is a sample
+   * @param resorting once in how many samples are the runs sorted */
+  TipperOrdering(final List<Tipper<? extends ASTNode>> declared, final int[] runs, final int sampling, final int resorting) {
+    this.declared = declared.toArray(new Tipper<?>[declared.size()]);
+    this.runs = runs;
+    this.sampling = sampling;
+    this.resorting = resorting;
+    hits = adders(declared.size());
+    nanos = adders(declared.size());
+    state = new AtomicReference<>(new State(this.declared, true));
+  }
+
+  private static LongAdder[] adders(final int n) {
+    final LongAdder[] $ = new LongAdder[n];
+    for (int ¢ = 0; ¢ < n; ++¢)
+      $[¢] = new LongAdder();
+    return $;
+  }
+
+  /** @param ts tippers of a type of nodes, in their declared order
+   * @param groups classes of tippers, of which no two tip the same node
+   * @return for each index, the index past the end of the run of at least two
+   *         tippers of the same group which starts there, or 0; or
+   *         <code><b>null</b></code> if there is no such run */
+  static int[] runs(final List<Tipper<? extends ASTNode>> ts, final List<Set<Class<?>>> groups) {
+    int[] $ = null;
+    for (int i = 0; i < ts.size();) {
+      final Set<Class<?>> g = group(ts.get(i), groups);
+      int j = i + 1;
+      if (g != null)
+        while (j < ts.size() && g.contains(ts.get(j).getClass()))
+          ++j;
+      if (j - i >= 2) {
+        if ($ == null)
+          $ = new int[ts.size()];
+        $[i] = j;
+      }
+      i = j;
+    }
+    return $;
+  }
+
+  private static Set<Class<?>> group(final Tipper<?> t, final List<Set<Class<?>>> groups) {
+    for (final Set<Class<?>> $ : groups)
+      if ($.contains(t.getClass()))
+        return $;
+    return null;
+  }
+
+  /** @return the tippers, in the order they are now tried */
+  List<Tipper<?>> order() {
+    return Collections.unmodifiableList(Arrays.asList(state.get().order));
+  }
+
+  @SuppressWarnings("unchecked") <N extends ASTNode> Tipper<N> first(final N n) {
+    final State s = state.get();
+    if (!s.measuring || ThreadLocalRandom.current().nextInt(sampling) != 0) {
+      for (final Tipper<?> ¢ : s.order)
+        if (((Tipper<N>) ¢).canTip(n))
+          return (Tipper<N>) ¢;
+      return null;
+    }
+    final Tipper<N> $ = sample(n);
+    if (samples.incrementAndGet() % resorting == 0)
+      resort();
+    return $;
+  }
+
+  /** Tries the tippers in their declared order, trying all those of a run,
+   * and recording the time and outcome of each */
+  @SuppressWarnings("unchecked") private <N extends ASTNode> Tipper<N> sample(final N n) {
+    for (int i = 0; i < declared.length;) {
+      if (runs[i] == 0) {
+        if (((Tipper<N>) declared[i]).canTip(n))
+          return (Tipper<N>) declared[i];
+        ++i;
+        continue;
+      }
+      Tipper<N> $ = null;
+      for (int ¢ = i; ¢ < runs[i]; ++¢) {
+        final long start = System.nanoTime();
+        final boolean hit = ((Tipper<N>) declared[¢]).canTip(n);
+        nanos[¢].add(System.nanoTime() - start);
+        if (!hit)
+          continue;
+        hits[¢].increment();
+        if ($ == null)
+          $ = (Tipper<N>) declared[¢];
+        else
+          overlap($, declared[¢], n);
+      }
+      if ($ != null)
+        return $;
+      i = runs[i];
+    }
+    return null;
+  }
+
+  private void overlap(final Tipper<?> t1, final Tipper<?> t2, final ASTNode n) {
+    state.set(new State(declared, false));
+    monitor.logProbableBug(this, new IllegalStateException(t1.myName() + " and " + t2.myName() + " were declared disjoint, but both tip " + n));
+  }
+
+  private void resort() {
+    replace(sorted(false), true);
+  }
+
+  /** Sorts the runs once more, by the measurements so far, and then stops
+   * measuring, so that all calls try the tippers in this order; does nothing
+   * if a sample found an overlap, or if it was called before
+   * @param reversed if set, each run is reversed, rather than sorted; this
+   *        order is valid too, since at most one tipper of a run tips a
+   *        node, and is used by tests, to make sure that the order is
+   *        changed */
+  void settle(final boolean reversed) {
+    replace(sorted(reversed), false);
+  }
+
+  /** Replaces a state in which samples are still made */
+  private void replace(final Tipper<?>[] order, final boolean measuring) {
+    for (State s = state.get(); s.measuring; s = state.get())
+      if (state.compareAndSet(s, new State(order, measuring)))
+        return;
+  }
+
+  /** @param reversed whether to reverse the runs, rather than sort them
+   * @return the declared order, with each run sorted */
+  private Tipper<?>[] sorted(final boolean reversed) {
+    final Tipper<?>[] $ = declared.clone();
+    for (int i = 0; i < declared.length; i = Math.max(i + 1, runs[i])) {
+      if (runs[i] == 0)
+        continue;
+      final Integer[] is = new Integer[runs[i] - i];
+      for (int ¢ = 0; ¢ < is.length; ++¢)
+        is[¢] = Integer.valueOf(i + ¢);
+      if (reversed)
+        Collections.reverse(Arrays.asList(is));
+      else
+        Arrays.sort(is, (i1, i2) -> Double.compare(score(i2.intValue()), score(i1.intValue())));
+      for (int ¢ = 0; ¢ < is.length; ++¢)
+        $[i + ¢] = declared[is[¢].intValue()];
+    }
+    return $;
+  }
+
+  /** @return hits per nanosecond of a tipper; since all tippers of a run are
+   *         tried equally often, adding one to the hits orders those which
+   *         never hit by their time */
+  private double score(final int ¢) {
+    return (hits[¢].sum() + 1.0) / (nanos[¢].sum() + 1.0);
+  }
+
+  @Override public String toString() {
+    return order() + "";
+  }
+}
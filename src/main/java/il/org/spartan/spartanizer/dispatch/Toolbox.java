@@ -1,6 +1,7 @@
 package il.org.spartan.spartanizer.dispatch;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
 
 import org.eclipse.jdt.core.dom.*;
@@ -17,35 +18,21 @@ import il.org.spartan.spartanizer.utils.*;
 
 /** Singleton containing all {@link Tipper}s which are active, allowing
  * selecting and applying the most appropriate such object for a given
- * {@link ASTNode}.
+ * {@link ASTNode}. The instances returned by {@link #defaultInstance()} are
+ * immutable, and are made once for each set of enabled {@link TipperGroup}s.
  * @author Yossi Gil
  * @since 2015-08-22 */
 public class Toolbox {
-  @SuppressWarnings({ "unchecked" }) //
-  static final Map<Class<? extends ASTNode>, Integer> //
-  classToNodeType = new LinkedHashMap<Class<? extends ASTNode>, Integer>() {
-    static final long serialVersionUID = 1L;
-    {
-      for (int nodeType = 1;; ++nodeType)
-        try {
-          monitor.debug("Searching for " + nodeType);
-          final Class<? extends ASTNode> nodeClassForType = ASTNode.nodeClassForType(nodeType);
-          monitor.debug("Found for " + nodeClassForType);
-          put(nodeClassForType, Integer.valueOf(nodeType));
-        } catch (final IllegalArgumentException x) {
-          monitor.debug(this, x);
-          break;
-        } catch (final Exception x) {
-          monitor.logEvaluationError(this, x);
-          break;
-        }
-    }
-  };
+  /** The type of each class of {@link ASTNode}s; computed once, at class
+   * initialization */
+  static final Map<Class<? extends ASTNode>, Integer> classToNodeType = nodeTypes();
+  /** Immutable instances, by the set of groups enabled in each */
+  private static final Map<Set<TipperGroup>, Toolbox> snapshots = new ConcurrentHashMap<>();
   @SuppressWarnings({ "synthetic-access",
       "rawtypes" }) private static final Map<Class<? extends Tipper>, TipperGroup> categoryMap = new HashMap<Class<? extends Tipper>, TipperGroup>() {
         static final long serialVersionUID = -4821340356894435723L;
         {
-          final Toolbox t = freshCopyOfAllTippers();
+          final Toolbox t = defaultInstance();
           assert t.implementation != null;
           for (final List<Tipper<? extends ASTNode>> ts : t.implementation)
             if (ts != null)
@@ -53,8 +40,6 @@ public class Toolbox {
                 put(¢.getClass(), ¢.tipperGroup());
         }
       };
-  /** The default Instance of this class */
-  static Toolbox defaultInstance;
 
   /** Generate an {@link ASTRewrite} that contains the changes proposed by the
    * first tipper that applies to a node in the usual scan.
@@ -95,8 +80,39 @@ public class Toolbox {
     }
   }
 
+  /** @return an immutable instance, containing the tippers of the groups
+   *         currently enabled in the preferences; it is shared, and must not
+   *         be changed */
   public static Toolbox defaultInstance() {
-    return defaultInstance = defaultInstance != null ? defaultInstance : freshCopyOfAllTippers();
+    return snapshot(enabledGroups());
+  }
+
+  /** @param gs JD
+   * @return an immutable instance, containing the tippers of these groups
+   *         only, whether or not they are enabled in the preferences; built
+   *         once for each set of groups, and shared between threads, which is
+   *         safe since tippers keep no state between calls */
+  public static Toolbox snapshot(final Set<TipperGroup> gs) {
+    final Toolbox $ = snapshots.get(gs);
+    if ($ != null)
+      return $;
+    final Set<TipperGroup> key = EnumSet.noneOf(TipperGroup.class);
+    key.addAll(gs);
+    return snapshots.computeIfAbsent(key, x -> {
+      final Toolbox t = allTippers(new Toolbox(true));
+      for (final TipperGroup ¢ : TipperGroup.values())
+        if (!x.contains(¢))
+          t.disable(¢);
+      return t.freeze();
+    });
+  }
+
+  static Set<TipperGroup> enabledGroups() {
+    final Set<TipperGroup> $ = EnumSet.noneOf(TipperGroup.class);
+    for (final TipperGroup ¢ : TipperGroup.values())
+      if (¢.isEnabled())
+        $.add(¢);
+    return $;
   }
 
   public static Toolbox muttableDefaultInstance() {
@@ -114,8 +130,16 @@ public class Toolbox {
     return null;
   }
 
+  /** @return a new instance, containing the tippers of the groups currently
+   *         enabled in the preferences */
   public static Toolbox freshCopyOfAllTippers() {
-    return new Toolbox()//
+    return allTippers(new Toolbox());
+  }
+
+  /** @param $ an empty instance
+   * @return the parameter, after all tippers were added to it */
+  private static Toolbox allTippers(final Toolbox $) {
+    return $//
         .add(EnhancedForStatement.class, //
             new EnhancedForParameterRenameToCent(), //
             null)//
@@ -280,10 +304,29 @@ public class Toolbox {
             new ForToForInitializers(), //
             new WhileToForInitializers(), //
             null) //
+        .disjoint(InfixMultiplicationEvaluate.class, InfixDivisionEvaluate.class, InfixRemainderEvaluate.class) //
+        .disjoint(MethodInvocationEqualsWithLiteralString.class, MethodInvocationValueOfBooleanConstant.class,
+            MethodInvocationToStringToEmptyStringAddition.class) //
+        .disjoint(PrefixIncrementDecrementReturn.class, PrefixNotPushdown.class) //
+        .disjoint(CastToDouble2Multiply1.class, CastToLong2Multiply1L.class) //
+        .disjoint(AnnotationDiscardValueName.class, AnnotationRemoveEmptyParentheses.class) //
     //
     ;
   }
 
+  /** @return the type of each class of nodes, found by probing
+   *         {@link ASTNode#nodeClassForType(int)} up to the first type it does
+   *         not know */
+  private static Map<Class<? extends ASTNode>, Integer> nodeTypes() {
+    final Map<Class<? extends ASTNode>, Integer> $ = new LinkedHashMap<>();
+    for (int ¢ = 1;; ++¢)
+      try {
+        $.put(ASTNode.nodeClassForType(¢), Integer.valueOf(¢));
+      } catch (@SuppressWarnings("unused") final IllegalArgumentException __) {
+        return $;
+      }
+  }
+
   /** Make a {@link Toolbox} for a specific kind of tippers
    * @param clazz JD
    * @param w JS
@@ -293,12 +336,14 @@ public class Toolbox {
     return emptyToolboox().add(clazz, ns);
   }
 
+  /** Forgets the instances made so far, e.g., when preferences change; since
+   * instances are chosen by the groups enabled, this only releases memory */
   public static void refresh() {
-    defaultInstance = freshCopyOfAllTippers();
+    snapshots.clear();
   }
 
   public static void refresh(final Trimmer ¢) {
-    ¢.toolbox = freshCopyOfAllTippers();
+    ¢.toolbox = defaultInstance();
   }
 
   private static void disable(final Class<? extends TipperCategory> c, final List<Tipper<? extends ASTNode>> ns) {
@@ -322,9 +367,82 @@ public class Toolbox {
   /** Implementation */
   @SuppressWarnings("unchecked") private final List<Tipper<? extends ASTNode>>[] implementation = //
       (List<Tipper<? extends ASTNode>>[]) new List<?>[2 * ASTNode.TYPE_METHOD_REFERENCE];
+  /** Groups of classes of tippers, of which no two tip the same node */
+  final List<Set<Class<?>>> disjoint = new ArrayList<>();
+  /** Orders of tippers, by node type, in an instance made by
+   * {@link #adaptive()}; <code><b>null</b></code> in others */
+  private TipperOrdering[] orderings;
+
+  /** Whether {@link #add(Class, Tipper...)} adds tippers of groups which are
+   * disabled in the preferences */
+  private final boolean unfiltered;
+  /** Whether this instance was made by {@link #freeze()}, and is thus
+   * immutable */
+  private boolean frozen;
 
   public Toolbox() {
-    // Nothing to do
+    this(false);
+  }
+
+  private Toolbox(final boolean unfiltered) {
+    this.unfiltered = unfiltered;
+  }
+
+  /** @return an immutable copy of this instance, whose lists are all present,
+   *         so that reading it never writes */
+  private Toolbox freeze() {
+    final Toolbox $ = new Toolbox();
+    $.frozen = true;
+    for (int ¢ = 0; ¢ < implementation.length; ++¢)
+      $.implementation[¢] = Collections.unmodifiableList(new ArrayList<>(get(¢)));
+    $.disjoint.addAll(disjoint);
+    return $;
+  }
+
+  /** @return this instance, if it is immutable, or an immutable copy of it,
+   *         which may then be shared between threads */
+  Toolbox frozen() {
+    return frozen ? this : freeze();
+  }
+
+  /** @return an immutable copy of this instance, which finds the same tippers,
+   *         but changes the order in which it tries tippers declared by
+   *         {@link #disjoint(Class...)}, by how often, and how fast, each
+   *         tips, as measured in the calls made to it; it may be shared
+   *         between threads, which then share these measurements */
+  public Toolbox adaptive() {
+    return adaptive(64, 256);
+  }
+
+  /** @param sampling one in how many calls to {@link #firstTipper(ASTNode)}
+   *        measures the tippers
+   * @param resorting once in how many measurements are tippers sorted
+   * @return same as {@link #adaptive()} */
+  Toolbox adaptive(final int sampling, final int resorting) {
+    final Toolbox $ = freeze();
+    $.orderings = new TipperOrdering[implementation.length];
+    for (int ¢ = 0; ¢ < implementation.length; ++¢) {
+      final int[] runs = TipperOrdering.runs($.implementation[¢], disjoint);
+      if (runs != null)
+        $.orderings[¢] = new TipperOrdering($.implementation[¢], runs, sampling, resorting);
+    }
+    return $;
+  }
+
+  /** Stops the measurements of an instance made by {@link #adaptive()}; see
+   * {@link TipperOrdering#settle(boolean)}
+   * @param reversed JD */
+  void settle(final boolean reversed) {
+    if (orderings != null)
+      for (final TipperOrdering ¢ : orderings)
+        if (¢ != null)
+          ¢.settle(reversed);
+  }
+
+  /** @param nodeType JD
+   * @return the tippers of this type of nodes, in the order they are tried */
+  List<Tipper<?>> order(final int nodeType) {
+    return orderings == null || orderings[nodeType] == null ? Collections.unmodifiableList(get(nodeType)) : orderings[nodeType].order();
   }
 
   /** Associate a bunch of{@link Tipper} with a given sub-class of
@@ -345,28 +463,63 @@ public class Toolbox {
       if (¢ == null)
         break;
       assert ¢.tipperGroup() != null : "Did you forget to use a specific kind for " + ¢.getClass().getSimpleName();
-      if (¢.tipperGroup().isEnabled())
+      if (unfiltered || ¢.tipperGroup().isEnabled())
         ts.add(¢);
     }
     return this;
   }
 
+  /** Declares that no two tippers of these classes tip the same node, so that
+   * the order of those registered consecutively, for the same type of nodes,
+   * does not matter, and may be changed by {@link #adaptive()}
+   * @param cs JD
+   * @return <code><b>this</b></code>, for easy chaining. */
+  @SafeVarargs public final Toolbox disjoint(final Class<? extends Tipper<?>>... cs) {
+    disjoint.add(new HashSet<>(Arrays.asList(cs)));
+    return this;
+  }
+
   public void disable(final Class<? extends TipperCategory> c) {
     for (final List<Tipper<? extends ASTNode>> ¢ : implementation)
       if (¢ != null)
         disable(c, ¢);
   }
 
+  /** Removes all tippers of a given group
+   * @param g JD */
+  public void disable(final TipperGroup g) {
+    for (final List<Tipper<? extends ASTNode>> ¢ : implementation)
+      if (¢ != null)
+        ¢.removeIf(x -> x.tipperGroup() == g);
+  }
+
   /** Find the first {@link Tipper} appropriate for an {@link ASTNode}
    * @param pattern JD
    * @return first {@link Tipper} for which the parameter is within scope, or
    *         <code><b>null</b></code> if no such {@link Tipper} is found. @ */
   public <N extends ASTNode> Tipper<N> firstTipper(final N ¢) {
-    return firstTipper(¢, get(¢));
+    return orderings == null || orderings[¢.getNodeType()] == null ? firstTipper(¢, get(¢)) : orderings[¢.getNodeType()].first(¢);
   }
 
   public List<Tipper<? extends ASTNode>> get(final int ¢) {
-    return implementation[¢] = implementation[¢] == null ? new ArrayList<>() : implementation[¢];
+    if (implementation[¢] == null)
+      implementation[¢] = new ArrayList<>();
+    return implementation[¢];
+  }
+
+  /** @return a description of the configuration of this instance: the
+   *         tippers of each node type, in order, and their groups; two
+   *         instances with the same fingerprint make the same tips */
+  public String fingerprint() {
+    final StringBuilder $ = new StringBuilder();
+    for (int i = 0; i < implementation.length; ++i)
+      if (implementation[i] != null && !implementation[i].isEmpty()) {
+        $.append(i).append(':');
+        for (final Tipper<? extends ASTNode> ¢ : implementation[i])
+          $.append(' ').append(¢.getClass().getName()).append('/').append(¢.tipperGroup());
+        $.append('\n');
+      }
+    return $ + "";
   }
 
   public int hooksCount() {
@@ -394,7 +547,7 @@ public class Toolbox {
     final List<String> $ = new LinkedList<>();
     if (¢ == null)
       return $;
-    final Toolbox t = freshCopyOfAllTippers();
+    final Toolbox t = defaultInstance();
     assert t.implementation != null;
     for (final List<Tipper<? extends ASTNode>> element : t.implementation)
       if (element != null)
@@ -2,6 +2,8 @@ package il.org.spartan.spartanizer.dispatch;
 
 import java.util.*;
 import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
 
 import org.eclipse.core.resources.*;
 import org.eclipse.jdt.core.dom.*;
@@ -10,16 +12,22 @@ import org.eclipse.jface.text.*;
 import org.eclipse.text.edits.*;
 
 import il.org.spartan.plugin.*;
+import il.org.spartan.spartanizer.ast.navigate.*;
 import il.org.spartan.spartanizer.cmdline.*;
 import il.org.spartan.spartanizer.engine.*;
 import il.org.spartan.spartanizer.tipping.*;
 import il.org.spartan.spartanizer.utils.*;
+import il.org.spartan.utils.*;
 
 /** @author Yossi Gil
  * @since 2015/07/10 */
 public class Trimmer extends AbstractGUIApplicator {
   public static boolean prune(final Tip r, final List<Tip> rs) {
-    if (r != null) {
+    if (r == null)
+      return true;
+    if (rs instanceof TipTree)
+      ((TipTree) rs).prune(r);
+    else {
       r.pruneIncluders(rs);
       rs.add(r);
     }
@@ -27,6 +35,30 @@ public class Trimmer extends AbstractGUIApplicator {
   }
 
   public Toolbox toolbox;
+  /** If set, each round applies a largest set of tips whose footprints do not
+   * overlap, chosen among all tips offered on the tree, as in
+   * {@link #consolidateDisjointTips(ASTRewrite, CompilationUnit, IMarker, AtomicInteger)}
+   */
+  public boolean disjointRounds;
+  /** If set, each round of {@link #fixed(Document)}, other than the first,
+   * visits only the members changed in the previous round; when these offer
+   * no more tips, a round over the entire tree makes sure that a fixed point
+   * was reached. Ignored if {@link #disjointRounds} is set. */
+  public boolean worklist;
+  /** If set, {@link #fixed(Document)} of a compilation unit of at least
+   * {@link #parallelFrom} characters first cuts out each member of its top
+   * level types, and trims the bodies of the members to their own fixed
+   * points, in parallel. Tippers which need the context of the class, e.g.,
+   * those of modifiers, of fields, and of the members themselves, run on the
+   * reassembled unit, in the rounds which follow. */
+  public boolean parallel;
+  /** Length, in characters, from which compilation units are trimmed in
+   * parallel, if {@link #parallel} is set */
+  public int parallelFrom = 1 << 16;
+  /** Number of rounds made by the last call to {@link #fixed(Document)} */
+  public int rounds;
+  /** Number of tips applied by the last call to {@link #fixed(Document)} */
+  public int tips;
 
   /** Instantiates this class */
   public Trimmer() {
@@ -39,58 +71,316 @@ public class Trimmer extends AbstractGUIApplicator {
   }
 
   @Override public void consolidateTips(final ASTRewrite r, final CompilationUnit u, final IMarker m, final AtomicInteger i) {
-    u.accept(new DispatchingVisitor() {
+    if (disjointRounds)
+      consolidateDisjointTips(r, u, m, i);
+    else
+      u.accept(tipsApplier(r, u, m, i));
+  }
+
+  /** Same as {@link #consolidateTips(ASTRewrite, CompilationUnit, IMarker, AtomicInteger)},
+   * except that only the given sub trees are visited
+   * @param r where tips are applied
+   * @param u JD
+   * @param scopes sub trees of the parameter, none of which contains another
+   * @param i counts the tips applied */
+  void consolidateTips(final ASTRewrite r, final CompilationUnit u, final List<ASTNode> scopes, final AtomicInteger i) {
+    disabling.scan(u);
+    final DispatchingVisitor v = tipsApplier(r, u, null, i);
+    for (final ASTNode ¢ : scopes)
+      ¢.accept(v);
+  }
+
+  private DispatchingVisitor tipsApplier(final ASTRewrite r, final CompilationUnit u, final IMarker m, final AtomicInteger i) {
+    return tipsVisitor(m, v -> v.exclude, (s, __) -> apply(r, u, s, i));
+  }
+
+  /** Finds and makes the tips of the nodes of a tree; the hooks of the
+   * {@link Deadline}, of {@link Events}, and of {@link TrimmerLog} are called
+   * here, for all the ways tips are scheduled
+   * @param m JD
+   * @param exclusions the {@link ExclusionManager} to make each tip with,
+   *        given the visitor
+   * @param found receives each tip made, with its {@link ExclusionManager}
+   * @return a visitor which finds and makes tips */
+  private DispatchingVisitor tipsVisitor(final IMarker m, final Function<DispatchingVisitor, ExclusionManager> exclusions,
+      final BiConsumer<Tip, ExclusionManager> found) {
+    final Deadline d = Deadline.current();
+    return new DispatchingVisitor() {
       @Override protected <N extends ASTNode> boolean go(final N n) {
         progressMonitor.worked(1);
         TrimmerLog.visitation(n);
         if (!check(n) || !inRange(m, n) || disabling.on(n))
           return true;
+        final Object event = Events.begin(Events.Kind.TIP);
         Tipper<N> w = null;
         try {
           w = getTipper(n);
         } catch (final Exception x) {
           monitor.debug(this, x);
         }
-        if (w == null)
+        if (w == null) {
+          Events.end(event, null, n);
           return true;
+        }
+        final ExclusionManager e = exclusions.apply(this);
         Tip s = null;
+        final long since = d == null ? 0 : System.nanoTime();
         try {
-          s = w.tip(n, exclude);
+          s = w.tip(n, e);
           TrimmerLog.tip(w, n);
         } catch (final TipperFailure f) {
           monitor.debug(this, f);
         } catch (final Exception x) {
           monitor.debug(this, x);
         }
-        if (s != null) {
-          i.incrementAndGet();
-          if (LogManager.isActive())
-            LogManager.getLogWriter().printRow(u.getJavaElement().getElementName(), s.description, s.lineNumber + "");
-          TrimmerLog.application(r, s);
-        }
+        Events.end(event, w, n);
+        if (d != null)
+          d.tipped(w, since);
+        if (s != null)
+          found.accept(s, e);
         return true;
       }
 
       @Override protected void initialization(final ASTNode ¢) {
         disabling.scan(¢);
       }
-    });
+    };
+  }
+
+  private static void apply(final ASTRewrite r, final CompilationUnit u, final Tip s, final AtomicInteger i) {
+    i.incrementAndGet();
+    if (LogManager.isActive())
+      LogManager.getLogWriter().printRow(u.getJavaElement().getElementName(), s.description, s.lineNumber + "");
+    TrimmerLog.application(r, s);
+  }
+
+  /** Collects every tip offered on the tree, each with an
+   * {@link ExclusionManager} of its own, and then applies a largest subset of
+   * these, no two of which overlap. The footprint of a tip is its range,
+   * extended to cover the nodes it excluded, since these are the nodes it may
+   * change. Tips excluded by other tips are not lost to the round, as they are
+   * in a single pass, unless they actually overlap a tip which was chosen.
+   * @param r where tips are applied
+   * @param u JD
+   * @param m JD
+   * @param i counts the tips applied */
+  void consolidateDisjointTips(final ASTRewrite r, final CompilationUnit u, final IMarker m, final AtomicInteger i) {
+    final List<Tip> tips = new ArrayList<>();
+    final Map<Tip, Range> footprints = new IdentityHashMap<>();
+    u.accept(tipsVisitor(m, __ -> new ExclusionManager(), (s, e) -> {
+      tips.add(s);
+      footprints.put(s, footprint(s, e));
+    }));
+    for (final Tip ¢ : IntervalScheduler.maximalDisjoint(tips, footprints::get))
+      apply(r, u, ¢, i);
+  }
+
+  private static Range footprint(final Tip t, final ExclusionManager m) {
+    Range $ = t;
+    for (final ASTNode ¢ : m.inner)
+      $ = $.merge(new Range(¢.getStartPosition(), ¢.getStartPosition() + ¢.getLength()));
+    return $;
   }
 
   public String fixed(final String from) {
-    for (final Document $ = new Document(from);;) {
-      final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT.from($.get());
-      final ASTRewrite r = createRewrite(u);
-      final TextEdit e = r.rewriteAST($, null);
+    final Document $ = new Document(from);
+    fixed($);
+    return $.get();
+  }
+
+  /** Trims a document repeatedly, until no more changes
+   * @param d JD, trimmed in place
+   * @return the {@link CompilationUnit} parsed in the last round, which
+   *         represents the final content of the document, and may be used
+   *         instead of parsing it once again
+   * @throws Deadline.Expired if the {@link Deadline} of the calling thread
+   *         passed; the document then holds the result of the rounds which
+   *         were completed */
+  public CompilationUnit fixed(final Document d) {
+    List<Range> changes = null;
+    final Deadline deadline = Deadline.current();
+    tips = 0;
+    final AtomicInteger tipped = new AtomicInteger(parallel && d.getLength() >= parallelFrom ? trimMembers(d) : 0);
+    for (rounds = 1;; ++rounds) {
+      if (deadline != null)
+        deadline.check();
+      Events.round(rounds);
+      final Object round = Events.begin(Events.Kind.ROUND);
+      final CompilationUnit $ = (CompilationUnit) makeAST.COMPILATION_UNIT.from(d.get());
+      RunStatistics.lap(RunStatistics.Phase.PARSE);
+      ASTRewrite r = changes == null ? createRewrite($, tipped) : createRewrite($, scopes($, changes), tipped);
+      RunStatistics.lap(RunStatistics.Phase.TIP);
+      Object rewrite = Events.begin(Events.Kind.REWRITE);
+      TextEdit e = r.rewriteAST(d, null);
+      if (changes != null && !e.hasChildren()) {
+        Events.end(rewrite);
+        r = createRewrite($, tipped);
+        RunStatistics.lap(RunStatistics.Phase.TIP);
+        rewrite = Events.begin(Events.Kind.REWRITE);
+        e = r.rewriteAST(d, null);
+      }
       try {
-        e.apply($);
+        e.apply(d);
       } catch (final MalformedTreeException | IllegalArgumentException | BadLocationException x) {
         monitor.logEvaluationError(this, x);
         throw new AssertionError(x);
       }
+      Events.end(rewrite);
+      Events.end(round);
+      RunStatistics.lap(RunStatistics.Phase.REWRITE);
+      tips = tipped.get();
       if (!e.hasChildren())
-        return $.get();
+        return $;
+      changes = worklist && !disjointRounds ? changes(e) : null;
+    }
+  }
+
+  /** Trims the bodies of the members of the top level types of a document,
+   * each on its own, in parallel
+   * @param d JD
+   * @return number of tips applied */
+  private int trimMembers(final Document d) {
+    final String text = d.get();
+    final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT.from(text);
+    disabling.scan(u);
+    final List<BodyDeclaration> ms = new ArrayList<>();
+    final Map<BodyDeclaration, String> headers = new HashMap<>();
+    for (final Object o : u.types()) {
+      final AbstractTypeDeclaration t = (AbstractTypeDeclaration) o;
+      if (disabling.on(t))
+        continue;
+      final String header = header(t, text);
+      for (final BodyDeclaration ¢ : step.bodyDeclarations(t))
+        if (!disabling.on(¢)) {
+          ms.add(¢);
+          headers.put(¢, header);
+        }
+    }
+    RunStatistics.lap(RunStatistics.Phase.PARSE);
+    if (ms.size() < 2)
+      return 0;
+    final Toolbox t = toolbox.frozen();
+    final Deadline deadline = Deadline.current();
+    final Object events = Events.context();
+    final RunStatistics.Parts parts = RunStatistics.parts();
+    final AtomicInteger $ = new AtomicInteger();
+    final List<String> trimmed = ms.parallelStream()
+        .map(¢ -> parts.run(() -> trimMember(t, headers.get(¢), text(¢, text), deadline, events, $))).collect(Collectors.toList());
+    parts.join();
+    final StringBuilder b = new StringBuilder(text);
+    for (int ¢ = ms.size() - 1; ¢ >= 0; --¢)
+      b.replace(ms.get(¢).getStartPosition(), ms.get(¢).getStartPosition() + ms.get(¢).getLength(), trimmed.get(¢));
+    d.set(b + "");
+    return $.get();
+  }
+
+  private static String text(final ASTNode n, final String text) {
+    return text.substring(n.getStartPosition(), n.getStartPosition() + n.getLength());
+  }
+
+  /** @param t JD
+   * @param text the text of which t was parsed
+   * @return the start of a type of the same kind and name as t, declaring its
+   *         fields, so that tippers of the bodies of its members see the names
+   *         they may hide */
+  private static String header(final AbstractTypeDeclaration t, final String text) {
+    final StringBuilder $ = new StringBuilder(t instanceof EnumDeclaration ? "enum "
+        : t instanceof AnnotationTypeDeclaration ? "@interface " : ((TypeDeclaration) t).isInterface() ? "interface " : "class ");
+    $.append(t.getName().getIdentifier()).append(t instanceof EnumDeclaration ? " {;\n" : " {\n");
+    for (final BodyDeclaration ¢ : step.bodyDeclarations(t))
+      if (¢ instanceof FieldDeclaration)
+        $.append(text(¢, text)).append('\n');
+    return $ + "";
+  }
+
+  /** Closes the type opened by {@link #header(AbstractTypeDeclaration, String)} */
+  static final String SUFFIX = "\n}\n";
+
+  /** @param b an immutable toolbox, shared by all members
+   * @param header the start of the type of the member
+   * @param member text of the member
+   * @param d deadline of the thread which cut out the member
+   * @param events what {@link Events#context()} returned in that thread
+   * @param tips counts the tips applied
+   * @return the text of the member, after its body was trimmed */
+  private String trimMember(final Toolbox b, final String header, final String member, final Deadline d, final Object events,
+      final AtomicInteger tips) {
+    final Trimmer t = new Trimmer(b) {
+      @Override protected <N extends ASTNode> boolean check(final N ¢) {
+        return ¢.getStartPosition() >= header.length() && inBody(¢);
+      }
+    };
+    t.worklist = worklist;
+    final Deadline previous = Deadline.adopt(d);
+    final Object context = Events.adopt(events);
+    try {
+      final String $ = t.fixed(header + member + SUFFIX);
+      tips.addAndGet(t.tips);
+      return !$.startsWith(header) || !$.endsWith(SUFFIX) ? member : $.substring(header.length(), $.length() - SUFFIX.length());
+    } finally {
+      Events.adopt(context);
+      Deadline.adopt(previous);
+    }
+  }
+
+  /** @param n JD
+   * @return whether the node is in the body of a method or of an initializer,
+   *         without a member in between */
+  static boolean inBody(final ASTNode n) {
+    for (ASTNode ¢ = n; ¢ != null; ¢ = ¢.getParent()) {
+      if (¢.getLocationInParent() == MethodDeclaration.BODY_PROPERTY || ¢.getLocationInParent() == Initializer.BODY_PROPERTY)
+        return true;
+      if (¢ instanceof BodyDeclaration)
+        return false;
+    }
+    return false;
+  }
+
+  private ASTRewrite createRewrite(final CompilationUnit u, final List<ASTNode> scopes, final AtomicInteger i) {
+    final ASTRewrite $ = ASTRewrite.create(u.getAST());
+    consolidateTips($, u, scopes, i);
+    return $;
+  }
+
+  /** @param e an edit, after it was applied
+   * @return the regions of the document it changed, as they are after the
+   *         change */
+  static List<Range> changes(final TextEdit e) {
+    final List<Range> $ = new ArrayList<>();
+    for (final Deque<TextEdit> es = new ArrayDeque<>(Collections.singleton(e)); !es.isEmpty();) {
+      final TextEdit ¢ = es.pop();
+      if (¢.hasChildren())
+        es.addAll(Arrays.asList(¢.getChildren()));
+      else if (!¢.isDeleted())
+        $.add(new Range(¢.getOffset(), ¢.getExclusiveEnd()));
     }
+    return $;
+  }
+
+  /** @param u JD
+   * @param changes regions which were changed in the last round
+   * @return the sub trees to visit in this round: for each change, the member
+   *         (method, field, initializer, etc.) enclosing it, or, if there is no
+   *         such member, the smallest node which covers it; none of these
+   *         contains another */
+  static List<ASTNode> scopes(final CompilationUnit u, final List<Range> changes) {
+    final Set<ASTNode> $ = new LinkedHashSet<>();
+    for (final Range r : changes)
+      $.add(scope(NodeFinder.perform(u, r.from, r.size())));
+    for (final Iterator<ASTNode> i = $.iterator(); i.hasNext();)
+      for (ASTNode ¢ = i.next().getParent(); ¢ != null; ¢ = ¢.getParent())
+        if ($.contains(¢)) {
+          i.remove();
+          break;
+        }
+    return new ArrayList<>($);
+  }
+
+  private static ASTNode scope(final ASTNode n) {
+    for (ASTNode $ = n; $ != null; $ = $.getParent())
+      if ($ instanceof BodyDeclaration && !($ instanceof AbstractTypeDeclaration))
+        return $;
+    return n;
   }
 
   @Override protected ASTVisitor makeTipsCollector(final List<Tip> $) {
@@ -0,0 +1,149 @@
+package il.org.spartan.spartanizer.engine;
+
+import org.eclipse.jdt.core.dom.*;
+
+import il.org.spartan.plugin.*;
+import il.org.spartan.spartanizer.tipping.*;
+
+/** Probes for Java Flight Recorder: a phase of the engine is surrounded by
+ * {@link #begin(Kind)} and {@link #end(Object)}, which emit an event of its
+ * {@link Kind}, carrying the current file and round of the calling thread, as
+ * set by {@link #file(String)} and {@link #round(int)}. The events themselves
+ * are in <code>FlightEvents</code>, which is loaded only if the JVM has the
+ * <code>jdk.jfr</code> API; on other JVMs all probes do nothing. Since the
+ * bundle is compiled for JavaSE-1.8, <code>FlightEvents</code> is in a source
+ * folder of its own, <code>src/main/jfr</code>, compiled only by builds on a
+ * JDK which has <code>jdk.jfr</code>; if it was not compiled, all probes do
+ * nothing as well.
+ * <p>
+ * {@link #begin(Kind)} returns <code><b>null</b></code>, without allocating,
+ * unless a recording enables the events of this kind; the events are enabled
+ * by the settings of the recording, e.g., by the profile
+ * <code>src/main/resources/spartanizer.jfc</code>.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class Events {
+  /** Kinds of events, one for each phase */
+  public enum Kind {
+    /** Parsing of text into a tree, by {@link makeAST} */
+    PARSE,
+    /** Finding a tipper for a node, and calling it */
+    TIP,
+    /** Rewriting the text of a round, and applying the edit */
+    REWRITE,
+    /** A round of a fixed point */
+    ROUND,
+    /** Placing markers on a file, in the plugin */
+    MARKERS
+  }
+
+  /** What is needed to emit events; implemented only where JFR is */
+  interface Sink {
+    /** @return a started event, or <code><b>null</b></code> if events of this
+     *         kind are disabled */
+    Object begin(Kind k);
+
+    void end(Object event, String file, int round, String tipper, String nodeType);
+  }
+
+  /** The file and round processed by a thread */
+  static final class Context {
+    String file;
+    int round;
+  }
+
+  private static final Sink sink = load();
+  private static final ThreadLocal<Context> context = ThreadLocal.withInitial(Context::new);
+
+  private Events() {
+    // Static members only
+  }
+
+  private static Sink load() {
+    try {
+      Class.forName("jdk.jfr.Event");
+      return (Sink) Class.forName(Events.class.getPackage().getName() + ".FlightEvents").newInstance();
+    } catch (final ClassNotFoundException | LinkageError __) {
+      return null;
+    } catch (final ReflectiveOperationException x) {
+      monitor.logProbableBug(Events.class, x);
+      return null;
+    }
+  }
+
+  /** @return whether events may be emitted at all in this JVM */
+  public static boolean available() {
+    return sink != null;
+  }
+
+  /** @param ¢ JD
+   * @return an event which was started, to be passed to {@link #end(Object)},
+   *         or <code><b>null</b></code> if this kind of event is disabled */
+  public static Object begin(final Kind ¢) {
+    return sink == null ? null : sink.begin(¢);
+  }
+
+  /** Ends and emits an event, unless it is <code><b>null</b></code>
+   * @param ¢ what {@link #begin(Kind)} returned */
+  public static void end(final Object ¢) {
+    if (¢ != null)
+      emit(¢, null, null);
+  }
+
+  /** Same as {@link #end(Object)}, for a {@link Kind#TIP} event
+   * @param e what {@link #begin(Kind)} returned
+   * @param t the tipper called, or <code><b>null</b></code> if none was
+   *        found
+   * @param n the node tipped */
+  public static void end(final Object e, final Tipper<?> t, final ASTNode n) {
+    if (e != null)
+      emit(e, t == null ? null : t.myName(), n.getClass().getSimpleName());
+  }
+
+  private static void emit(final Object e, final String tipper, final String nodeType) {
+    final Context c = context.get();
+    sink.end(e, c.file, c.round, tipper, nodeType);
+  }
+
+  /** @return the file and round of the calling thread, for threads which
+   *         process parts of the same file to {@link #adopt(Object)} */
+  public static Object context() {
+    return sink == null ? null : copy(context.get());
+  }
+
+  /** Makes the calling thread emit events with the file and round of another
+   * thread, or restores its own
+   * @param ¢ what {@link #context()} returned, or what this method returned
+   * @return the file and round of the calling thread before */
+  public static Object adopt(final Object ¢) {
+    if (sink == null)
+      return null;
+    final Context $ = context.get();
+    context.set(¢ == null ? new Context() : copy((Context) ¢));
+    return $;
+  }
+
+  private static Context copy(final Context c) {
+    final Context $ = new Context();
+    $.file = c.file;
+    $.round = c.round;
+    return $;
+  }
+
+  /** Sets the file processed by the calling thread
+   * @param ¢ JD */
+  public static void file(final String ¢) {
+    if (sink == null)
+      return;
+    final Context c = context.get();
+    c.file = ¢;
+    c.round = 0;
+  }
+
+  /** Sets the round of a fixed point made by the calling thread
+   * @param ¢ JD */
+  public static void round(final int ¢) {
+    if (sink != null)
+      context.get().round = ¢;
+  }
+}
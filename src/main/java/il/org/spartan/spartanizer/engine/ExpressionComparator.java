@@ -20,19 +20,19 @@ public enum ExpressionComparator implements Comparator<Expression> {
    * @author Yossi Gil
    * @since 2015-07-19 */
   ADDITION {
-    @Override public int compare(final Expression e1, final Expression e2) {
+    @Override int compare(final Key k1, final Key k2) {
       int $;
-      return ($ = literalCompare(e1, e2)) != 0 || ($ = nodesCompare(e1, e2)) != 0 || ($ = characterCompare(e1, e2)) != 0
-          || ($ = alphabeticalCompare(e1, e2)) != 0 ? $ : 0;
+      return ($ = literalCompare(k1, k2)) != 0 || ($ = nodesCompare(k1, k2)) != 0 || ($ = characterCompare(k1, k2)) != 0
+          || ($ = alphabeticalCompare(k1, k2)) != 0 ? $ : 0;
     }
   },
   /** Order on terms in addition: except that we do not sort alphabetically
    * @author Yossi Gil
    * @since 2015-07-19 */
   PRUDENT {
-    @Override public int compare(final Expression e1, final Expression e2) {
+    @Override int compare(final Key k1, final Key k2) {
       int $;
-      return ($ = literalCompare(e1, e2)) != 0 || ($ = nodesCompare(e1, e2)) != 0 || ($ = characterCompare(e1, e2)) != 0 ? $ : 0;
+      return ($ = literalCompare(k1, k2)) != 0 || ($ = nodesCompare(k1, k2)) != 0 || ($ = characterCompare(k1, k2)) != 0 ? $ : 0;
     }
   },
   /** Order on terms in multiplication: literals must be last. Sort literals by
@@ -40,13 +40,34 @@ public enum ExpressionComparator implements Comparator<Expression> {
    * @author Yossi Gil
    * @since 2015-07-19 */
   MULTIPLICATION {
-    @Override public int compare(final Expression e1, final Expression e2) {
+    @Override int compare(final Key k1, final Key k2) {
       int $;
-      return ($ = literalCompare(e2, e1)) == 0 && ($ = nodesCompare(e1, e2)) == 0 && ($ = characterCompare(e1, e2)) == 0
-          && ($ = alphabeticalCompare(e1, e2)) == 0 ? 0 : $;
+      return ($ = literalCompare(k2, k1)) == 0 && ($ = nodesCompare(k1, k2)) == 0 && ($ = characterCompare(k1, k2)) == 0
+          && ($ = alphabeticalCompare(k1, k2)) == 0 ? 0 : $;
     }
   };
-  private static specificity specificity = new specificity();
+  /** Everything the comparators look at in an operand, computed once, so that
+   * sorting k operands does not render and count them O(k<sup>2</sup>) times
+   * @author Yossi Gil
+   * @since 2016 */
+  static final class Key {
+    final Expression expression;
+    final boolean negative;
+    /** Level of specificity, see {@link specificity} */
+    final int level;
+    final int nodes;
+    /** Text of the operand, without white space */
+    final String text;
+
+    Key(final Expression expression) {
+      this.expression = expression;
+      negative = iz.negative(expression);
+      level = specificity.Level.of(expression);
+      nodes = count.nodes(expression);
+      text = removeWhites(wizard.body(expression));
+    }
+  }
+
   /** Threshold for comparing nodes; a difference in the number of nodes between
    * two nodes is considered zero, if it is the less than this value, */
   public static final int NODES_THRESHOLD = 1;
@@ -76,7 +97,11 @@ public enum ExpressionComparator implements Comparator<Expression> {
    *         same place, or after then the second argument in lexicographical
    *         order. */
   static int alphabeticalCompare(final Expression e1, final Expression e2) {
-    return removeWhites(wizard.body(e1)).compareTo(removeWhites(wizard.body(e2)));
+    return alphabeticalCompare(new Key(e1), new Key(e2));
+  }
+
+  static int alphabeticalCompare(final Key k1, final Key k2) {
+    return k1.text.compareTo(k2.text);
   }
 
   static int argumentsCompare(final Expression e1, final Expression e2) {
@@ -97,14 +122,26 @@ public enum ExpressionComparator implements Comparator<Expression> {
     return count.nonWhiteCharacters(e1) - count.nonWhiteCharacters(e2);
   }
 
+  static int characterCompare(final Key k1, final Key k2) {
+    return k1.text.length() - k2.text.length();
+  }
+
   static int literalCompare(final Expression e1, final Expression e2) {
-    return -specificity.compare(e1, e2);
+    return -new specificity().compare(e1, e2);
+  }
+
+  static int literalCompare(final Key k1, final Key k2) {
+    return -(k1.level - k2.level);
   }
 
   static int nodesCompare(final Expression e1, final Expression e2) {
     return round(count.nodes(e1) - count.nodes(e2), NODES_THRESHOLD);
   }
 
+  static int nodesCompare(final Key k1, final Key k2) {
+    return round(k1.nodes - k2.nodes, NODES_THRESHOLD);
+  }
+
   static int round(final int $, final int threshold) {
     return Math.abs($) > threshold ? $ : 0;
   }
@@ -116,24 +153,40 @@ public enum ExpressionComparator implements Comparator<Expression> {
     );
   }
 
-  /** Sorts the {@link Expression} list
+  @Override public int compare(final Expression e1, final Expression e2) {
+    return compare(new Key(e1), new Key(e2));
+  }
+
+  abstract int compare(Key k1, Key k2);
+
+  /** Sorts the {@link Expression} list. The sort key of each operand is
+   * computed once, before sorting.
    * @param xs an {@link Expression} list to sort
    * @return <code><b>true</b></code> <em>iff</em>the list was modified */
   public boolean sort(final List<Expression> xs) {
+    final List<Key> ks = new ArrayList<>(xs.size());
+    for (final Expression ¢ : xs)
+      ks.add(new Key(¢));
     boolean $ = false;
-    // Bubble sort
-    for (int i = 0, size = xs.size(); i < size; ++i)
+    // Bubble sort; a pass with no swaps would be repeated identically
+    for (int i = 0, size = ks.size(); i < size; ++i) {
+      boolean swapped = false;
       for (int j = 0; j < size - 1; ++j) {
-        final Expression e0 = xs.get(j);
-        final Expression e1 = xs.get(j + 1);
-        if (iz.negative(e0) || iz.negative(e1) || compare(e0, e1) <= 0)
+        final Key k0 = ks.get(j);
+        final Key k1 = ks.get(j + 1);
+        if (k0.negative || k1.negative || compare(k0, k1) <= 0)
           continue;
-        xs.remove(j);
-        xs.remove(j);
-        xs.add(j, e0);
-        xs.add(j, e1);
-        $ = true;
+        ks.set(j, k1);
+        ks.set(j + 1, k0);
+        swapped = true;
       }
+      if (!swapped)
+        break;
+      $ = true;
+    }
+    if ($)
+      for (int ¢ = 0; ¢ < xs.size(); ++¢)
+        xs.set(¢, ks.get(¢).expression);
     return $;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package il.org.spartan.spartanizer.engine;
+
+import java.util.*;
+import java.util.function.*;
+
+import il.org.spartan.utils.*;
+
+/** An empty <code><b>enum</b></code> for fluent programming, offering the
+ * classical greedy solution of interval scheduling: among a set of ranges,
+ * choose as many as possible, no two of which overlap.
+ * @author Yossi Gil
+ * @since 2016 */
+public enum IntervalScheduler {
+  ;
+  /** @param ts what to choose from
+   * @param range the range each of them occupies
+   * @return a largest sub list of the parameter, in which no two ranges
+   *         overlap (though one may end where another starts), ordered by
+   *         their start */
+  public static <T> List<T> maximalDisjoint(final List<T> ts, final Function<T, Range> range) {
+    final List<T> byEnd = new ArrayList<>(ts);
+    byEnd.sort(Comparator.comparingInt((final T ¢) -> range.apply(¢).to).thenComparingInt(¢ -> range.apply(¢).from));
+    final List<T> $ = new ArrayList<>();
+    int end = Integer.MIN_VALUE;
+    for (final T ¢ : byEnd) {
+      final Range r = range.apply(¢);
+      if (r.from < end)
+        continue;
+      $.add(¢);
+      end = r.to;
+    }
+    return $;
+  }
+}
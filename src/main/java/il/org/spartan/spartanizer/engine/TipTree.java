@@ -0,0 +1,185 @@
+package il.org.spartan.spartanizer.engine;
+
+import java.util.*;
+
+import il.org.spartan.utils.*;
+
+/** A list of {@link Tip}s, in the order in which they were added, which is
+ * also an interval tree (a treap ordered by {@link Range#from}, in which every
+ * node knows the largest {@link Range#to} beneath it). The tree finds the tips
+ * whose range includes a given range in logarithmic time, so that collecting
+ * <i>n</i> tips with {@link #prune(Tip)} costs <i>O(n log n)</i>, rather than
+ * the <i>O(n<sup>2</sup>)</i> of {@link Range#pruneIncluders(List)} on a plain
+ * list.
+ * <p>
+ * Other than {@link #prune(Tip)}, {@link #add(Tip)} and {@link #clear()}, the
+ * list may not be changed.
+ * @author Yossi Gil
+ * @since 2016 */
+public final class TipTree extends AbstractList<Tip> {
+  private static final class Node {
+    final Tip tip;
+    /** Order of addition; breaks ties between tips which start together */
+    final long serial;
+    final int priority;
+    Node left;
+    Node right;
+    /** Largest {@link Range#to} in the subtree rooted at this node */
+    int maxTo;
+    /** Position in {@link TipTree#inOrder} */
+    int slot;
+
+    Node(final Tip tip, final long serial, final int priority) {
+      this.tip = tip;
+      this.serial = serial;
+      this.priority = priority;
+    }
+
+    boolean before(final Node ¢) {
+      return tip.from < ¢.tip.from || tip.from == ¢.tip.from && serial < ¢.serial;
+    }
+
+    Node update() {
+      maxTo = tip.to;
+      if (left != null)
+        maxTo = Math.max(maxTo, left.maxTo);
+      if (right != null)
+        maxTo = Math.max(maxTo, right.maxTo);
+      return this;
+    }
+  }
+
+  private static Node insert(final Node t, final Node n) {
+    if (t == null)
+      return n.update();
+    if (n.before(t)) {
+      t.left = insert(t.left, n);
+      return t.left.priority <= t.priority ? t.update() : rotateRight(t);
+    }
+    t.right = insert(t.right, n);
+    return t.right.priority <= t.priority ? t.update() : rotateLeft(t);
+  }
+
+  private static Node rotateRight(final Node t) {
+    final Node $ = t.left;
+    t.left = $.right;
+    $.right = t.update();
+    return $.update();
+  }
+
+  private static Node rotateLeft(final Node t) {
+    final Node $ = t.right;
+    t.right = $.left;
+    $.left = t.update();
+    return $.update();
+  }
+
+  private static Node delete(final Node t, final Node n) {
+    if (t == n)
+      return join(t.left, t.right);
+    if (n.before(t))
+      t.left = delete(t.left, n);
+    else
+      t.right = delete(t.right, n);
+    return t.update();
+  }
+
+  private static Node join(final Node n1, final Node n2) {
+    if (n1 == null)
+      return n2;
+    if (n2 == null)
+      return n1;
+    if (n1.priority > n2.priority) {
+      n1.right = join(n1.right, n2);
+      return n1.update();
+    }
+    n2.left = join(n1, n2.left);
+    return n2.update();
+  }
+
+  private static void includers(final Node n, final Range r, final List<Node> $) {
+    if (n == null || n.maxTo < r.to)
+      return;
+    includers(n.left, r, $);
+    if (n.tip.from > r.from)
+      return;
+    if (n.tip.to >= r.to)
+      $.add(n);
+    includers(n.right, r, $);
+  }
+
+  /** Fixed seed, so that the shape of the tree, and hence the cost of
+   * collecting tips, is the same in every run */
+  private final Random random = new Random(0);
+  /** All tips added, and not removed since the last {@link #compact()}; removed
+   * tips leave a <code><b>null</b></code> behind */
+  private final List<Node> inOrder = new ArrayList<>();
+  private int removed;
+  private Node root;
+  private long serial;
+
+  @Override public boolean add(final Tip ¢) {
+    final Node n = new Node(¢, serial++, random.nextInt());
+    n.slot = inOrder.size();
+    inOrder.add(n);
+    root = insert(root, n);
+    ++modCount;
+    return true;
+  }
+
+  @Override public void clear() {
+    inOrder.clear();
+    removed = 0;
+    root = null;
+    ++modCount;
+  }
+
+  @Override public Tip get(final int index) {
+    compact();
+    return inOrder.get(index).tip;
+  }
+
+  /** @param r JD
+   * @return all tips whose range includes the parameter, ordered by their
+   *         start */
+  public List<Tip> includers(final Range r) {
+    final List<Node> ns = new ArrayList<>();
+    includers(root, r, ns);
+    final List<Tip> $ = new ArrayList<>(ns.size());
+    for (final Node ¢ : ns)
+      $.add(¢.tip);
+    return $;
+  }
+
+  /** Removes all tips whose range includes that of the parameter, and then
+   * adds it; the same as {@link Range#pruneIncluders(List)} followed by
+   * {@link #add(Tip)}.
+   * @param t JD */
+  public void prune(final Tip t) {
+    final List<Node> ns = new ArrayList<>();
+    includers(root, t, ns);
+    for (final Node ¢ : ns) {
+      root = delete(root, ¢);
+      inOrder.set(¢.slot, null);
+      ++removed;
+    }
+    add(t);
+  }
+
+  @Override public int size() {
+    return inOrder.size() - removed;
+  }
+
+  private void compact() {
+    if (removed == 0)
+      return;
+    int i = 0;
+    for (final Node ¢ : inOrder)
+      if (¢ != null) {
+        ¢.slot = i;
+        inOrder.set(i++, ¢);
+      }
+    inOrder.subList(i, inOrder.size()).clear();
+    removed = 0;
+  }
+}
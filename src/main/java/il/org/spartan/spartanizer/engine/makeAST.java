@@ -25,15 +25,15 @@ public enum makeAST {
     }
 
     @Override public CompilationUnit from(final IFile ¢) {
-      return (CompilationUnit) Make.COMPILATION_UNIT.parser(¢).createAST(null);
+      return (CompilationUnit) parse(Make.COMPILATION_UNIT.parser(¢), null);
     }
 
     @Override public CompilationUnit from(final IMarker m, final IProgressMonitor pm) {
-      return (CompilationUnit) Make.COMPILATION_UNIT.parser(m).createAST(pm);
+      return (CompilationUnit) parse(Make.COMPILATION_UNIT.parser(m), pm);
     }
 
     @Override public CompilationUnit from(final String ¢) {
-      return (CompilationUnit) makeParser(¢).createAST(null);
+      return (CompilationUnit) parse(makeParser(¢), null);
     }
   },
   /** Converts file, string or marker to expression. */
@@ -43,15 +43,15 @@ public enum makeAST {
     }
 
     @Override public Expression from(final IFile ¢) {
-      return (Expression) Make.EXPRESSION.parser(¢).createAST(null);
+      return (Expression) parse(Make.EXPRESSION.parser(¢), null);
     }
 
     @Override public Expression from(final IMarker m, final IProgressMonitor pm) {
-      return (Expression) Make.EXPRESSION.parser(m).createAST(pm);
+      return (Expression) parse(Make.EXPRESSION.parser(m), pm);
     }
 
     @Override public Expression from(final String ¢) {
-      return (Expression) makeParser(¢).createAST(null);
+      return (Expression) parse(makeParser(¢), null);
     }
   },
   /** Constant used in order to get the source as a sequence of sideEffects. */
@@ -124,7 +124,7 @@ public enum makeAST {
   /** @param f IFile
    * @return ASTNode */
   public ASTNode from(final IFile ¢) {
-    return Make.from(this).parser(¢).createAST(null);
+    return parse(Make.from(this).parser(¢), null);
   }
 
   /** IMarker, SubProgressMonitor -> ASTNode converter
@@ -132,14 +132,27 @@ public enum makeAST {
    * @param pm ProgressMonitor
    * @return ASTNode */
   public ASTNode from(final IMarker m, final IProgressMonitor pm) {
-    return Make.from(this).parser(m).createAST(pm);
+    return parse(Make.from(this).parser(m), pm);
   }
 
   /** String -> ASTNode converter
    * @param s String
    * @return ASTNode */
   public ASTNode from(final String ¢) {
-    return makeParser(¢).createAST(null);
+    return parse(makeParser(¢), null);
+  }
+
+  /** Parses, emitting an {@link Events.Kind#PARSE} event
+   * @param p JD
+   * @param pm JD
+   * @return what the parser made */
+  static ASTNode parse(final ASTParser p, final IProgressMonitor pm) {
+    final Object e = Events.begin(Events.Kind.PARSE);
+    try {
+      return p.createAST(pm);
+    } finally {
+      Events.end(e);
+    }
   }
 
   /** Creates a no-binding parser for a given text
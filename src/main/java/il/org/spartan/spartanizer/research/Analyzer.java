@@ -1,9 +1,14 @@
 package il.org.spartan.spartanizer.research;
 
 import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jface.text.*;
 
 import il.org.spartan.plugin.*;
 import il.org.spartan.spartanizer.cmdline.*;
@@ -15,6 +20,8 @@ import il.org.spartan.spartanizer.research.patterns.*;
 public class Analyzer {
   static String outputDir = "/tmp";
   static String inputDir;
+  /** Number of files, per worker thread, that may be in flight at once */
+  private static final int WINDOW = 4;
 
   public static void main(final String args[]) {
     parseArguments(args);
@@ -34,17 +41,6 @@ public class Analyzer {
       dir.mkdir();
   }
 
-  /** Append String to file.
-   * @param f file
-   * @param s string */
-  private static void appendFile(final File f, final String s) {
-    try (FileWriter w = new FileWriter(f, true)) {
-      w.write(s);
-    } catch (final IOException x) {
-      monitor.infoIOException(x, "append");
-    }
-  }
-
   /** Clean {@link cu} from any comments, javadoc, importDeclarations,
    * packageDeclarations and FieldDeclarations.
    * @param cu
@@ -60,49 +56,71 @@ public class Analyzer {
     return makeAST.COMPILATION_UNIT.from(¢);
   }
 
-  /** @param ¢ String
-   * @return compilation unit out of file */
-  private static ASTNode getCompilationUnit(final String ¢) {
-    return makeAST.COMPILATION_UNIT.from(¢);
+  /** Heuristically, we ignore test files.
+   * @param ¢ JD
+   * @return whether the file should be analyzed */
+  private static boolean isAnalyzed(final Path ¢) {
+    return Files.isRegularFile(¢) && (¢.getFileName() + "").endsWith(".java") && !(¢ + "").contains("src/test")
+        && !(¢.getFileName() + "").contains("Test");
   }
 
-  /** Get all java files contained in folder recursively. <br>
-   * Heuristically, we ignore test files.
+  /** Get all java files contained in folder recursively, lazily, in a
+   * deterministic order.
    * @param dirName name of directory to search in
-   * @return All java files nested inside the folder */
-  private static Set<File> getJavaFiles(final String dirName) {
-    return getJavaFiles(new File(dirName));
+   * @return All java files nested inside the folder; the stream must be
+   *         closed */
+  private static Stream<Path> getJavaFiles(final String dirName) throws IOException {
+    return Files.walk(Paths.get(dirName), FileVisitOption.FOLLOW_LINKS).filter(Analyzer::isAnalyzed);
   }
 
-  /** Get all java files contained in folder recursively. <br>
-   * Heuristically, we ignore test files.
-   * @param directory to search in
-   * @return All java files nested inside the folder */
-  private static Set<File> getJavaFiles(final File directory) {
-    final Set<File> $ = new HashSet<>();
-    if (directory == null || directory.listFiles() == null)
-      return $;
-    for (final File entry : directory.listFiles())
-      if (entry.isFile() && entry.getName().endsWith(".java") && !entry.getPath().contains("src/test") && !entry.getName().contains("Test"))
-        $.add(entry);
-      else
-        $.addAll(getJavaFiles(entry));
-    return $;
+  /** Each worker thread has its own spartanizer, since toolboxes and
+   * tippers are not meant to be shared */
+  private static final ThreadLocal<InteractiveSpartanizer> spartanizer = ThreadLocal
+      .withInitial(() -> addNanoPatterns(new InteractiveSpartanizer()));
+
+  /** Parses, cleans and spartanizes a single file, reusing the
+   * {@link CompilationUnit} of the last spartanization round instead of
+   * parsing the spartanized code again.
+   * @param ¢ file
+   * @return spartanized code */
+  private static String analyze(final File ¢) {
+    final ASTNode cu = clean(getCompilationUnit(¢));
+    Logger.logCompilationUnit(cu);
+    final Document $ = new Document(cu + "");
+    Logger.logSpartanizedCompilationUnit(spartanizer.get().fixedPoint($));
+    return $.get();
   }
 
-  /** @param outputDir to which the spartanized code file and CSV files will be
+  /** A streaming pipeline: files are discovered lazily and handed to a pool of
+   * workers, which parse, clean and spartanize them. A single buffered writer
+   * collects the results in the order of discovery. At most {@link #WINDOW}
+   * files per worker are in flight, so memory does not grow with the corpus.
+   * @param outputDir to which the spartanized code file and CSV files will be
    *        placed in */
   private static void analyze() {
-    final InteractiveSpartanizer spartanizer = addNanoPatterns(new InteractiveSpartanizer());
     sanityCheck();
-    String spartanizedCode = "";
-    new File(outputDir + "/after.java").delete();
-    for (final File ¢ : getJavaFiles(inputDir)) {
-      final ASTNode cu = clean(getCompilationUnit(¢));
-      Logger.logCompilationUnit(cu);
-      spartanizedCode = spartanizer.fixedPoint(cu + "");
-      appendFile(new File(outputDir + "/after.java"), spartanizedCode);
-      Logger.logSpartanizedCompilationUnit(getCompilationUnit(spartanizedCode));
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final ExecutorService workers = Executors.newFixedThreadPool(threads);
+    final Queue<Future<String>> inFlight = new ArrayDeque<>();
+    try (Stream<Path> files = getJavaFiles(inputDir);
+        Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputDir + "/after.java"), StandardCharsets.UTF_8))) {
+      for (final Iterator<Path> ¢ = files.iterator(); ¢.hasNext();) {
+        final File f = ¢.next().toFile();
+        inFlight.add(workers.submit(() -> analyze(f)));
+        if (inFlight.size() >= WINDOW * threads)
+          w.write(inFlight.remove().get());
+      }
+      while (!inFlight.isEmpty())
+        w.write(inFlight.remove().get());
+    } catch (final IOException x) {
+      monitor.infoIOException(x, "analyze");
+    } catch (final InterruptedException x) {
+      Thread.currentThread().interrupt();
+      monitor.logCancellationRequest(Analyzer.class, x);
+    } catch (final ExecutionException x) {
+      monitor.logEvaluationError(Analyzer.class, x.getCause());
+    } finally {
+      workers.shutdownNow();
     }
     Logger.summarize(outputDir);
   }
@@ -2,37 +2,44 @@ package il.org.spartan.spartanizer.research;
 
 import org.eclipse.jdt.core.dom.*;
 
+import il.org.spartan.spartanizer.ast.navigate.*;
+
 /** @author Ori Marcovitch
  * @since 2016 */
 public class CleanerVisitor extends ASTVisitor {
+  private static void delete(final ASTNode ¢) {
+    SubtreeSizes.invalidate(¢);
+    ¢.delete();
+  }
+
   @Override public boolean visit(final Javadoc n) {
-    n.delete();
+    delete(n);
     return true;
   }
 
   @Override public boolean visit(final LineComment ¢) {
     System.out.println("line");
-    ¢.delete();
+    delete(¢);
     return true;
   }
 
   @Override public boolean visit(final BlockComment ¢) {
-    ¢.delete();
+    delete(¢);
     return true;
   }
 
   @Override public boolean visit(final ImportDeclaration ¢) {
-    ¢.delete();
+    delete(¢);
     return true;
   }
 
   @Override public boolean visit(final PackageDeclaration ¢) {
-    ¢.delete();
+    delete(¢);
     return true;
   }
 
   @Override public boolean visit(final FieldDeclaration ¢) {
-    ¢.delete();
+    delete(¢);
     return true;
   }
 }
@@ -1,9 +1,10 @@
 package il.org.spartan.spartanizer.research;
 
-import static il.org.spartan.spartanizer.research.idiomatic.*;
-
 import java.io.*;
 import java.util.*;
+import java.util.Map.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import org.eclipse.jdt.core.dom.*;
 
@@ -16,29 +17,47 @@ import il.org.spartan.spartanizer.utils.*;
 /** The purpose of this class is to gather information about NPs and summarize
  * it, so we can submit nice papers and win eternal fame.
  * <p>
- * Whenever an NP is matched it should log itself.
+ * Whenever an NP is matched it should log itself. Logging may happen from
+ * several {@link Analyzer} worker threads at once; each thread accumulates its
+ * own statistics, which are merged only when summarizing.
  * @author Ori Marcovitch
  * @since 2016 */
 public class Logger {
-  private static final Map<Integer, MethodRecord> methodsStatistics = new HashMap<>();
-  private static final Map<String, NPRecord> npStatistics = new HashMap<>();
-  private static final Map<String, Int> nodesStatistics = new HashMap<>();
-  private static final Map<Class<? extends ASTNode>, Int> codeStatistics = new HashMap<>();
-  private static int numMethods;
+  /** Accumulators of all threads that ever logged; merged by
+   * {@link #summarize(String)} */
+  private static final Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+  private static final ThreadLocal<Accumulator> accumulator = ThreadLocal.withInitial(() -> {
+    final Accumulator $ = new Accumulator();
+    accumulators.add($);
+    return $;
+  });
+  private static final LongAdder numMethods = new LongAdder();
 
+  /** Merges the statistics of all threads and writes them. Must be called
+   * after all logging threads are done.
+   * @param outputDir JD */
   public static void summarize(final String outputDir) {
-    summarizeMethodStatistics(outputDir);
-    summarizeNPStatistics(outputDir);
+    final Accumulator $ = merged();
+    summarizeMethodStatistics(outputDir, $.methodsStatistics);
+    summarizeNPStatistics(outputDir, $.npStatistics);
     reset();
   }
 
-  private static void summarizeMethodStatistics(final String outputDir) {
+  /** @return the statistics of all threads, merged */
+  static Accumulator merged() {
+    final Accumulator $ = new Accumulator();
+    for (final Accumulator ¢ : accumulators)
+      $.merge(¢);
+    return $;
+  }
+
+  private static void summarizeMethodStatistics(final String outputDir, final Map<String, MethodRecord> methodsStatistics) {
     final CSVStatistics report = openMethodSummaryFile(outputDir);
     if (report == null)
       return;
     double sumSratio = 0;
     double sumEratio = 0;
-    for (final Integer k : methodsStatistics.keySet()) {
+    for (final String k : methodsStatistics.keySet()) {
       final MethodRecord m = methodsStatistics.get(k);
       report //
           .put("Name", m.methodClassName + "~" + m.methodName) //
@@ -55,13 +74,14 @@ public class Logger {
       sumSratio += m.numStatements == 0 ? 1 : m.numNPStatements / m.numStatements;
       sumEratio += m.numExpressions == 0 ? 1 : m.numNPExpressions / m.numExpressions;
     }
-    System.out.println("Total methods number: " + numMethods);
-    System.out.println("Average statement ratio: " + sumSratio / numMethods);
-    System.out.println("Average Expression ratio: " + sumEratio / numMethods);
+    final long methods = numMethods.sum();
+    System.out.println("Total methods number: " + methods);
+    System.out.println("Average statement ratio: " + sumSratio / methods);
+    System.out.println("Average Expression ratio: " + sumEratio / methods);
     report.close();
   }
 
-  private static void summarizeNPStatistics(final String outputDir) {
+  private static void summarizeNPStatistics(final String outputDir, final Map<String, NPRecord> npStatistics) {
     final CSVStatistics report = openNPSummaryFile(outputDir);
     if (report == null)
       return;
@@ -95,8 +115,9 @@ public class Logger {
   }
 
   private static void reset() {
-    methodsStatistics.clear();
-    numMethods = 0;
+    for (final Accumulator ¢ : accumulators)
+      ¢.methodsStatistics.clear();
+    numMethods.reset();
   }
 
   public static void logNP(final ASTNode n, final String np) {
@@ -107,23 +128,19 @@ public class Logger {
   /** @param n
    * @param np */
   private static void logNPInfo(final ASTNode n, final String np) {
-    execute(() -> npStatistics.put(np, new NPRecord(np, n.getClass()))).when(!npStatistics.containsKey(np));
-    npStatistics.get(np).markNP(n);
+    accumulator.get().npStatistics.computeIfAbsent(np, k -> new NPRecord(k, n.getClass())).markNP(n);
   }
 
   /** @param ¢
    * @param np */
   static void logNodeInfo(final ASTNode ¢) {
-    final String nodeClassName = ¢.getClass().getSimpleName();
-    execute(() -> nodesStatistics.put(nodeClassName, new Int())).when(!nodesStatistics.containsKey(nodeClassName));
-    ++nodesStatistics.get(nodeClassName).inner;
+    ++accumulator.get().nodesStatistics.computeIfAbsent(¢.getClass().getSimpleName(), k -> new Int()).inner;
   }
 
   /** @param ¢
    * @param np */
   static void addToNodeType(final Class<? extends ASTNode> n, final int num) {
-    execute(() -> codeStatistics.put(n, new Int())).when(!codeStatistics.containsKey(n));
-    codeStatistics.get(n).inner += num;
+    accumulator.get().codeStatistics.computeIfAbsent(n, k -> new Int()).inner += num;
   }
 
   private static void logMethodInfo(final ASTNode n, final String np) {
@@ -132,9 +149,30 @@ public class Logger {
       System.out.println(n);
       return;
     }
-    final Integer key = Integer.valueOf(m.hashCode());
-    execute(() -> methodsStatistics.put(key, new MethodRecord(m))).when(!methodsStatistics.containsKey(key));
-    methodsStatistics.get(key).markNP(n, np);
+    accumulator.get().methodsStatistics.computeIfAbsent(methodKey(m), k -> new MethodRecord(m)).markNP(n, np);
+  }
+
+  /** A key of a method which is stable across parses: its package, the path
+   * of its enclosing types, and its signature; hence, records of a method
+   * parsed more than once are merged, while methods of identically named
+   * types in different packages are not.
+   * @param ¢ JD
+   * @return key of the method */
+  static String methodKey(final MethodDeclaration ¢) {
+    final StringBuilder $ = new StringBuilder(packageName(¢)).append(findTypeAncestor(¢)).append('~').append(¢.getName()).append('(');
+    final List<SingleVariableDeclaration> ps = step.parameters(¢);
+    for (int i = 0; i < ps.size(); ++i)
+      $.append(i == 0 ? "" : ",").append(ps.get(i).getType()).append(ps.get(i).isVarargs() ? "..." : "");
+    return $.append(')') + "";
+  }
+
+  /** @param ¢ JD
+   * @return the name of the package of the node, followed by a dot, or the
+   *         empty string, in the default package */
+  private static String packageName(final ASTNode ¢) {
+    final ASTNode root = ¢.getRoot();
+    final PackageDeclaration $ = !(root instanceof CompilationUnit) ? null : ((CompilationUnit) root).getPackage();
+    return $ == null ? "" : $.getName() + ".";
   }
 
   /** @param ¢
@@ -175,6 +213,9 @@ public class Logger {
     public int numStatements;
     public int numExpressions;
 
+    /** Sizes are computed here, once per method, no matter how many times it
+     * is parsed, or how many nanopatterns are found in it
+     * @param m JD */
     public MethodRecord(final MethodDeclaration m) {
       methodName = m.getName() + "";
       methodClassName = findTypeAncestor(m);
@@ -183,6 +224,16 @@ public class Logger {
       numExpressions = metrics.countExpressions(m);
     }
 
+    /** A record of the same method, with its sizes, but with no nanopatterns
+     * @param ¢ JD */
+    MethodRecord(final MethodRecord ¢) {
+      methodName = ¢.methodName;
+      methodClassName = ¢.methodClassName;
+      numParameters = ¢.numParameters;
+      numStatements = ¢.numStatements;
+      numExpressions = ¢.numExpressions;
+    }
+
     /** @param n matched node
      * @param np matching nanopattern */
     public void markNP(final ASTNode n, final String np) {
@@ -191,12 +242,21 @@ public class Logger {
       nps.add(np);
       logNodeInfo(n);
     }
+
+    /** Adds the nanopatterns of another record of the same method, that is,
+     * of the same key; its sizes are the same, and are not added
+     * @param ¢ JD */
+    void merge(final MethodRecord ¢) {
+      numNPStatements += ¢.numNPStatements;
+      numNPExpressions += ¢.numNPExpressions;
+      nps.addAll(¢.nps);
+    }
   }
 
   /** Collect statistics of a compilation unit which will be analyzed.
    * @param cu compilation unit */
   public static void logCompilationUnit(final ASTNode cu) {
-    numMethods += metrics.countMethods(cu);
+    numMethods.add(metrics.countMethods(cu));
   }
 
   /** Collects statistics for a nanopattern.
@@ -212,8 +272,12 @@ public class Logger {
     /** @param name
      * @param cl */
     public NPRecord(final String name, final Class<? extends ASTNode> cl) {
+      this(name, cl.getSimpleName());
+    }
+
+    NPRecord(final String name, final String className) {
       this.name = name;
-      className = cl.getSimpleName();
+      this.className = className;
     }
 
     /** @param ¢ matched node */
@@ -222,6 +286,34 @@ public class Logger {
       numNPStatements += metrics.countStatements(¢);
       numNPExpressions += metrics.countExpressions(¢);
     }
+
+    void merge(final NPRecord ¢) {
+      occurences += ¢.occurences;
+      numNPStatements += ¢.numNPStatements;
+      numNPExpressions += ¢.numNPExpressions;
+    }
+  }
+
+  /** Statistics gathered by a single thread, so that logging requires no
+   * synchronization; sorted maps keep the reports deterministic.
+   * @author Ori Marcovitch
+   * @since 2016 */
+  static class Accumulator {
+    final Map<String, MethodRecord> methodsStatistics = new TreeMap<>();
+    final Map<String, NPRecord> npStatistics = new TreeMap<>();
+    final Map<String, Int> nodesStatistics = new TreeMap<>();
+    final Map<Class<? extends ASTNode>, Int> codeStatistics = new HashMap<>();
+
+    void merge(final Accumulator a) {
+      for (final Entry<String, MethodRecord> ¢ : a.methodsStatistics.entrySet())
+        methodsStatistics.computeIfAbsent(¢.getKey(), k -> new MethodRecord(¢.getValue())).merge(¢.getValue());
+      for (final Entry<String, NPRecord> ¢ : a.npStatistics.entrySet())
+        npStatistics.computeIfAbsent(¢.getKey(), k -> new NPRecord(¢.getValue().name, ¢.getValue().className)).merge(¢.getValue());
+      for (final Entry<String, Int> ¢ : a.nodesStatistics.entrySet())
+        nodesStatistics.computeIfAbsent(¢.getKey(), k -> new Int()).inner += ¢.getValue().inner;
+      for (final Entry<Class<? extends ASTNode>, Int> ¢ : a.codeStatistics.entrySet())
+        codeStatistics.computeIfAbsent(¢.getKey(), k -> new Int()).inner += ¢.getValue().inner;
+    }
   }
 
   /** @param compilationUnit */
@@ -12,6 +12,14 @@ import il.org.spartan.utils.*;
 /** @author Ori Marcovitch
  * @since 2016 */
 public class Matcher {
+  /** Checks whether the statements of pattern block <code>p</code> match a
+   * consecutive sub-list of the statements of block <code>n</code>. Deep
+   * matching is attempted only at offsets where the shapes of the statements
+   * agree, see {@link StatementsFingerprint}.
+   * @param p pattern
+   * @param n inspected node
+   * @return <code><b>true</b></code> <em>iff</em> some sub-block of
+   *         <code>n</code> matches <code>p</code> */
   public static boolean blockMatches(final ASTNode p, final ASTNode n) {
     if (!iz.block(n) || !iz.block(p))
       return false;
@@ -19,7 +27,7 @@ public class Matcher {
     @SuppressWarnings("unchecked") final List<Statement> sn = az.block(n).statements();
     if (sp == null || sn == null || sp.size() > sn.size())
       return false;
-    for (int ¢ = 0; ¢ <= sn.size() - sp.size(); ++¢)
+    for (final int ¢ : StatementsFingerprint.ofPattern(az.block(p)).candidates(StatementsFingerprint.of(az.block(n))))
       if (new Matcher().statementsMatch(sp, sn.subList(¢, ¢ + sp.size())))
         return true;
     return false;
@@ -32,7 +40,7 @@ public class Matcher {
   @SuppressWarnings("boxing") public static Pair<Integer, Integer> getBlockMatching(final Block p, final Block n) {
     @SuppressWarnings("unchecked") final List<Statement> sp = p.statements();
     @SuppressWarnings("unchecked") final List<Statement> sn = n.statements();
-    for (int ¢ = 0; ¢ <= sn.size() - sp.size(); ++¢)
+    for (final int ¢ : StatementsFingerprint.ofPattern(p).candidates(StatementsFingerprint.of(n)))
       if (new Matcher().statementsMatch(sp, sn.subList(¢, ¢ + sp.size())))
         return new Pair<>(¢, ¢ + sp.size());
     return null;
@@ -95,9 +103,9 @@ public class Matcher {
     if (isBlockVariable(p))
       return matchesBlock(n) && consistent(blockName(p), n + "");
     if (isMethodInvocationAndHas$AArgument(p))
-      return isMethodInvocationAndConsistentWith$AArgument(p, n) && Recurser.children(n).size() == Recurser.children(p).size();
+      return isMethodInvocationAndConsistentWith$AArgument(p, n) && Descendants.recurserChildren(n) == Descendants.recurserChildren(p);
     if (isClassInstanceCreationAndHas$AArgument(p))
-      return isClassInstanceCreationAndConsistentWith$AArgument(p, n) && Recurser.children(n).size() == Recurser.children(p).size();
+      return isClassInstanceCreationAndConsistentWith$AArgument(p, n) && Descendants.recurserChildren(n) == Descendants.recurserChildren(p);
     if (differentTypes(p, n))
       return false;
     if (iz.literal(p))
@@ -165,7 +173,7 @@ public class Matcher {
     return az.methodInvocation(az.expressionStatement(p).getExpression()).getName().getFullyQualifiedName();
   }
 
-  private static boolean isBlockVariable(final ASTNode p) {
+  static boolean isBlockVariable(final ASTNode p) {
     return iz.expressionStatement(p) && iz.methodInvocation(az.expressionStatement(p).getExpression()) && blockName(p).startsWith("$B");
   }
 
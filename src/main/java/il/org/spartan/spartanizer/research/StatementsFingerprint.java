@@ -0,0 +1,166 @@
+package il.org.spartan.spartanizer.research;
+
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+
+import il.org.spartan.spartanizer.ast.safety.*;
+
+/** A cheap fingerprint of the shape of a sequence of statements, used by
+ * {@link Matcher} to avoid deep matching a pattern at every offset of a block.
+ * The shape of a statement is its node type, together with the node type of
+ * its key child (the expression of an expression statement, the condition of
+ * an <code><b>if</b></code>, etc.). Pattern statements may hold wildcards:
+ * <code>$B</code> statements match any statement, and names or literals in the
+ * key child position match any key child. <br>
+ * Offsets are found by running KMP over the node types of the longest
+ * wildcard free run of the pattern, and only then are the full shapes
+ * compared.
+ * @author Ori Marcovitch
+ * @since 2016 */
+final class StatementsFingerprint {
+  private static final String AST_PROPERTY_NAME_FINGERPRINT = "spartan_statements_fingerprint";
+  static final int ANY = -1;
+  static final int NONE = 0;
+
+  /** @param p a pattern block
+   * @return the fingerprint of the pattern, computed once and kept as a
+   *         property of the pattern node */
+  static StatementsFingerprint ofPattern(final Block p) {
+    final Object cached = p.getProperty(AST_PROPERTY_NAME_FINGERPRINT);
+    if (cached != null)
+      return (StatementsFingerprint) cached;
+    final StatementsFingerprint $ = new StatementsFingerprint(statements(p), true);
+    p.setProperty(AST_PROPERTY_NAME_FINGERPRINT, $);
+    return $;
+  }
+
+  /** @param ¢ an inspected block
+   * @return the fingerprint of the block */
+  static StatementsFingerprint of(final Block ¢) {
+    return new StatementsFingerprint(statements(¢), false);
+  }
+
+  @SuppressWarnings("unchecked") private static List<Statement> statements(final Block ¢) {
+    return ¢.statements();
+  }
+
+  private static int keyChildShape(final Expression $, final boolean pattern) {
+    return $ == null ? NONE : pattern && (iz.name($) || iz.literal($)) ? ANY : $.getNodeType();
+  }
+
+  private static Expression keyChild(final Statement ¢) {
+    switch (¢.getNodeType()) {
+      case ASTNode.EXPRESSION_STATEMENT:
+        return ((ExpressionStatement) ¢).getExpression();
+      case ASTNode.RETURN_STATEMENT:
+        return ((ReturnStatement) ¢).getExpression();
+      case ASTNode.THROW_STATEMENT:
+        return ((ThrowStatement) ¢).getExpression();
+      case ASTNode.IF_STATEMENT:
+        return ((IfStatement) ¢).getExpression();
+      case ASTNode.WHILE_STATEMENT:
+        return ((WhileStatement) ¢).getExpression();
+      case ASTNode.DO_STATEMENT:
+        return ((DoStatement) ¢).getExpression();
+      default:
+        return null;
+    }
+  }
+
+  /** Node types of the statements; {@link #ANY} for a pattern wildcard */
+  final int[] types;
+  /** Node types of the key children; {@link #ANY} for a pattern wildcard */
+  final int[] keys;
+  /** Start of the longest wildcard free run of {@link #types} */
+  private int anchorFrom;
+  /** KMP failure function of the anchor run */
+  private int[] failure;
+
+  private StatementsFingerprint(final List<Statement> ss, final boolean pattern) {
+    types = new int[ss.size()];
+    keys = new int[ss.size()];
+    for (int ¢ = 0; ¢ < ss.size(); ++¢) {
+      final Statement s = ss.get(¢);
+      if (pattern && Matcher.isBlockVariable(s)) {
+        types[¢] = keys[¢] = ANY;
+        continue;
+      }
+      types[¢] = s.getNodeType();
+      keys[¢] = keyChildShape(keyChild(s), pattern);
+    }
+    if (pattern)
+      computeAnchor();
+  }
+
+  int size() {
+    return types.length;
+  }
+
+  /** @param n fingerprint of an inspected block
+   * @param from offset in the inspected block
+   * @return <code><b>true</b></code> <em>iff</em> this pattern's shape agrees
+   *         with the shape of <code>n</code> starting at <code>from</code> */
+  boolean agrees(final StatementsFingerprint n, final int from) {
+    for (int ¢ = 0; ¢ < size(); ++¢)
+      if (!agrees(types[¢], n.types[from + ¢]) || !agrees(keys[¢], n.keys[from + ¢]))
+        return false;
+    return true;
+  }
+
+  private static boolean agrees(final int pattern, final int actual) {
+    return pattern == ANY || pattern == actual;
+  }
+
+  /** Computes, in increasing order, the offsets of an inspected block at
+   * which this pattern may match
+   * @param n fingerprint of an inspected block
+   * @return candidate offsets, each of which still requires a deep match */
+  int[] candidates(final StatementsFingerprint n) {
+    final int last = n.size() - size();
+    if (last < 0)
+      return new int[0];
+    final int[] $ = new int[last + 1];
+    int count = 0;
+    if (failure.length == 0) {
+      for (int ¢ = 0; ¢ <= last; ++¢)
+        if (agrees(n, ¢))
+          $[count++] = ¢;
+      return Arrays.copyOf($, count);
+    }
+    for (int i = anchorFrom, matched = 0; i < n.size(); ++i) {
+      while (matched > 0 && types[anchorFrom + matched] != n.types[i])
+        matched = failure[matched - 1];
+      if (types[anchorFrom + matched] == n.types[i])
+        ++matched;
+      if (matched != failure.length)
+        continue;
+      final int offset = i - anchorFrom - matched + 1;
+      if (offset <= last && agrees(n, offset))
+        $[count++] = offset;
+      matched = failure[matched - 1];
+    }
+    return Arrays.copyOf($, count);
+  }
+
+  private void computeAnchor() {
+    int bestFrom = 0, bestLength = 0;
+    for (int from = 0, ¢ = 0; ¢ <= types.length; ++¢)
+      if (¢ == types.length || types[¢] == ANY) {
+        if (¢ - from > bestLength) {
+          bestFrom = from;
+          bestLength = ¢ - from;
+        }
+        from = ¢ + 1;
+      }
+    anchorFrom = bestFrom;
+    failure = new int[bestLength];
+    for (int i = 1, k = 0; i < bestLength; ++i) {
+      while (k > 0 && types[bestFrom + i] != types[bestFrom + k])
+        k = failure[k - 1];
+      if (types[bestFrom + i] == types[bestFrom + k])
+        ++k;
+      failure[i] = k;
+    }
+  }
+}
@@ -32,6 +32,11 @@ public class TipperFactory {
     return new UserDefinedTipper<N>() {
       final ASTNode pattern = wizard.ast(reformat$Bs(_pattern));
       final String replacement = reformat$Bs(_replacement);
+      {
+        // Cached on the pattern now, so that threads sharing this tipper only read it
+        if (az.block(pattern) != null)
+          StatementsFingerprint.ofPattern(az.block(pattern));
+      }
 
       @Override @SuppressWarnings("boxing") public Tip tip(final N n) {
         final Pair<Integer, Integer> idxs = Matcher.getBlockMatching(az.block(pattern), az.block(n));
@@ -44,7 +49,7 @@ public class TipperFactory {
             for (final String ¢ : enviroment.keySet())
               if (¢.startsWith("$B"))
                 $.set($.get().replace(¢, enviroment.get(¢) + ""));
-            wizard.ast(replacement).accept(new ASTVisitor() {
+            wizard.template(replacement).accept(new ASTVisitor() {
               @Override public boolean preVisit2(final ASTNode ¢) {
                 if (iz.name(¢) && enviroment.containsKey(¢ + ""))
                   $.set($.get().replaceFirst((¢ + "").replace("$", "\\$"), enviroment.get(¢ + "").replace("\\", "\\\\").replace("$", "\\$") + ""));
@@ -87,7 +92,7 @@ public class TipperFactory {
             for (final String ¢ : enviroment.keySet())
               if (¢.startsWith("$B"))
                 $.set($.get().replace(¢, enviroment.get(¢) + ""));
-            wizard.ast(replacement).accept(new ASTVisitor() {
+            wizard.template(replacement).accept(new ASTVisitor() {
               @Override public boolean preVisit2(final ASTNode ¢) {
                 if (iz.name(¢) && enviroment.containsKey(¢ + ""))
                   $.set($.get().replaceFirst((¢ + "").replace("$", "\\$"), enviroment.get(¢ + "").replace("\\", "\\\\").replace("$", "\\$") + ""));
@@ -18,7 +18,13 @@ import il.org.spartan.spartanizer.engine.*;
  * @author Daniel Mittelman <code><mittelmania [at] gmail.com></code>
  * @since 2015-07-09 */
 public abstract class Tipper<N extends ASTNode> implements TipperCategory {
-  private Class<N> myOperandsClass;
+  /** The class of operands of each class of tippers, found by reflection only
+   * once for each class, rather than once for each instance */
+  private static final ClassValue<Class<?>> operandsClass = new ClassValue<Class<?>>() {
+    @Override protected Class<?> computeValue(final Class<?> ¢) {
+      return operandsClass(¢);
+    }
+  };
 
   /** Determine whether the parameter is "eligible" for application of this
    * instance.
@@ -46,7 +52,7 @@ public abstract class Tipper<N extends ASTNode> implements TipperCategory {
   /** Heuristics to find the class of operands on which this class works.
    * @return a guess for the type of the node. */
   public final Class<N> myAbstractOperandsClass() {
-    return myOperandsClass != null ? myOperandsClass : (myOperandsClass = initializeMyOperandsClass());
+    return castClass(operandsClass.get(getClass()));
   }
 
   public Class<N> myActualOperandsClass() {
@@ -70,20 +76,19 @@ public abstract class Tipper<N extends ASTNode> implements TipperCategory {
     return (Class<N>) c2;
   }
 
-  private Class<N> initializeMyOperandsClass() {
-    Class<N> $ = null;
-    for (final Method ¢ : getClass().getMethods())
-      if (¢.getParameterCount() == 1 && !Modifier.isStatic(¢.getModifiers()) && isDefinedHere(¢))
+  /** Heuristics to find the class of operands on which a class of tippers
+   * works: the lowest sub class of {@link ASTNode} taken by a one argument
+   * method defined in it. */
+  static Class<?> operandsClass(final Class<?> c) {
+    Class<?> $ = null;
+    for (final Method ¢ : c.getMethods())
+      if (¢.getParameterCount() == 1 && !Modifier.isStatic(¢.getModifiers()) && ¢.getDeclaringClass() == c)
         $ = lowest($, ¢.getParameterTypes()[0]);
-    return $ != null ? $ : castClass(ASTNode.class);
+    return $ != null ? $ : ASTNode.class;
   }
 
-  private boolean isDefinedHere(final Method ¢) {
-    return ¢.getDeclaringClass() == getClass();
-  }
-
-  private Class<N> lowest(final Class<N> c1, final Class<?> c2) {
-    return c2 == null || !ASTNode.class.isAssignableFrom(c2) || c1 != null && !c1.isAssignableFrom(c2) ? c1 : castClass(c2);
+  private static Class<?> lowest(final Class<?> c1, final Class<?> c2) {
+    return c2 == null || !ASTNode.class.isAssignableFrom(c2) || c1 != null && !c1.isAssignableFrom(c2) ? c1 : c2;
   }
 
   @Override public boolean equals(final Object ¢) {
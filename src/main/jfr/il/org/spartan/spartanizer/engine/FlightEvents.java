@@ -0,0 +1,89 @@
+package il.org.spartan.spartanizer.engine;
+
+import jdk.jfr.*;
+
+/** The Java Flight Recorder events of {@link Events}; this is the only class
+ * which refers to <code>jdk.jfr</code>, and it is loaded only if the JVM has
+ * it. It is compiled apart from the rest of the bundle, which targets
+ * JavaSE-1.8, by the <code>jfr</code> profile of the build, and the bundle
+ * imports <code>jdk.jfr</code> dynamically, since OSGi does not delegate it
+ * to the boot class loader. All events are disabled by default, and are
+ * enabled by the settings of a recording.
+ * @author Yossi Gil
+ * @since 2016 */
+final class FlightEvents implements Events.Sink {
+  /** Fields shared by all events */
+  @Category("Spartanizer") @StackTrace(false) @Enabled(false) abstract static class Phase extends Event {
+    @Label("File") String file;
+    @Label("Round") int round;
+  }
+
+  @Name("il.org.spartan.Parse") @Label("Parse") @Description("Parsing text into a tree") static final class Parse extends Phase {
+    // Fields are inherited
+  }
+
+  @Name("il.org.spartan.Tip") @Label("Tip") @Description("Finding a tipper for a node, and calling it") static final class Tip extends Phase {
+    @Label("Tipper") String tipper;
+    @Label("Node Type") String nodeType;
+  }
+
+  @Name("il.org.spartan.Rewrite") @Label("Rewrite") @Description("Rewriting the text of a round, and applying the edit") static final class Rewrite
+      extends Phase {
+    // Fields are inherited
+  }
+
+  @Name("il.org.spartan.Round") @Label("Round") @Description("A round of a fixed point") static final class Round extends Phase {
+    // Fields are inherited
+  }
+
+  @Name("il.org.spartan.Markers") @Label("Markers") @Description("Placing the markers of a file") static final class Markers extends Phase {
+    // Fields are inherited
+  }
+
+  /** Types of the events, by the ordinal of their kind; asking them whether
+   * they are enabled allocates nothing */
+  private final EventType[] types = { //
+      EventType.getEventType(Parse.class), //
+      EventType.getEventType(Tip.class), //
+      EventType.getEventType(Rewrite.class), //
+      EventType.getEventType(Round.class), //
+      EventType.getEventType(Markers.class), //
+  };
+
+  @Override public Object begin(final Events.Kind k) {
+    if (!types[k.ordinal()].isEnabled())
+      return null;
+    final Phase $ = make(k);
+    $.begin();
+    return $;
+  }
+
+  @Override public void end(final Object event, final String file, final int round, final String tipper, final String nodeType) {
+    final Phase $ = (Phase) event;
+    $.end();
+    if (!$.shouldCommit())
+      return;
+    $.file = file;
+    $.round = round;
+    if ($ instanceof Tip) {
+      ((Tip) $).tipper = tipper;
+      ((Tip) $).nodeType = nodeType;
+    }
+    $.commit();
+  }
+
+  private static Phase make(final Events.Kind ¢) {
+    switch (¢) {
+      case PARSE:
+        return new Parse();
+      case TIP:
+        return new Tip();
+      case REWRITE:
+        return new Rewrite();
+      case ROUND:
+        return new Round();
+      default:
+        return new Markers();
+    }
+  }
+}
@@ -0,0 +1,71 @@
+package il.org.spartan.plugin;
+
+import static il.org.spartan.azzert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.cmdline.*;
+import il.org.spartan.spartanizer.dispatch.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class LogTest {
+  private Log.Level level;
+
+  @Before public void save() {
+    level = Log.level();
+    Log.clear();
+  }
+
+  @After public void restore() {
+    Log.level(level);
+    Log.clear();
+  }
+
+  @Test public void offIsLazy() {
+    Log.level(Log.Level.INFO);
+    Log.trace(() -> {
+      throw new AssertionError("Message made while its level is off");
+    });
+    Log.debug(x -> {
+      throw new AssertionError(x);
+    }, "off");
+    azzert.that(Log.recent().size(), is(0));
+  }
+
+  @Test public void levels() {
+    Log.level(Log.Level.DEBUG);
+    assert Log.on(Log.Level.ERROR);
+    assert Log.on(Log.Level.DEBUG);
+    assert !Log.on(Log.Level.TRACE);
+    Log.debug(x -> "Visit " + x, "A");
+    Log.trace(() -> "Hidden");
+    azzert.that(Log.recent(), is(Collections.singletonList("DEBUG: Visit A")));
+  }
+
+  @Test public void ring() {
+    Log.level(Log.Level.TRACE);
+    for (int ¢ = 0; ¢ < Log.CAPACITY + 3; ++¢)
+      Log.log(Log.Level.INFO, ¢ + "");
+    final List<String> $ = Log.recent();
+    azzert.that($.size(), is(Log.CAPACITY));
+    azzert.that($.get(0), is("INFO: 3"));
+    azzert.that($.get(Log.CAPACITY - 1), is("INFO: " + (Log.CAPACITY + 2)));
+  }
+
+  @Test public void trimmerLogIsSilentByDefault() {
+    Log.level(Log.Level.INFO);
+    new Trimmer().fixed("class A { int f() { int a = 1; return a; } }");
+    azzert.that(Log.recent().size(), is(0));
+  }
+
+  @Test public void trimmerLogTraces() {
+    Log.level(Log.Level.TRACE);
+    TrimmerLog.setMaxVisitations(5);
+    new Trimmer().fixed("class A { int f() { int a = 1; return a; } }");
+    assert Log.recent().stream().anyMatch(x -> x.startsWith("TRACE: VISIT")) : Log.recent();
+  }
+}
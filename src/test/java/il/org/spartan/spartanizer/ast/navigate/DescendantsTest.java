@@ -0,0 +1,66 @@
+package il.org.spartan.spartanizer.ast.navigate;
+
+import static il.org.spartan.azzert.*;
+
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.engine.*;
+
+@SuppressWarnings({ "static-method", "javadoc", "boxing" }) public final class DescendantsTest {
+  private final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT
+      .from("/** doc {@link B} */ class A { int f(int a, int... bs) { if (a > 0) return g(a - 1, b) + 2 + a; for (int b : bs) a += b; return 3; } }");
+
+  @Test public void sameOrderAsVisitor() {
+    final List<ASTNode> expected = new ArrayList<>();
+    u.accept(new ASTVisitor() {
+      @Override public void preVisit(final ASTNode ¢) {
+        expected.add(¢);
+      }
+    });
+    final List<ASTNode> actual = new ArrayList<>();
+    for (final ASTNode ¢ : Descendants.of(u))
+      actual.add(¢);
+    azzert.that(actual, is(expected));
+  }
+
+  @Test public void sameNodesAsRecurser() {
+    final MethodDeclaration d = findFirst.methodDeclaration(u);
+    azzert.that(metrics.nodes(d), is(new Recurser<>(d, 0).preVisit((x) -> 1 + x.getCurrent())));
+  }
+
+  @Test public void recurserChildren() {
+    u.accept(new ASTVisitor() {
+      @Override public void preVisit(final ASTNode ¢) {
+        azzert.that(Descendants.recurserChildren(¢), is(Recurser.children(¢).size()));
+      }
+    });
+  }
+
+  @Test public void skipChildren() {
+    final Iterator<ASTNode> $ = Descendants.of(u).iterator();
+    int count = 0;
+    while ($.hasNext()) {
+      ++count;
+      if ($.next() instanceof MethodDeclaration)
+        ((Descendants) $).skipChildren();
+    }
+    azzert.that(count, is(hop.descendants(u).size() + 1 - hop.descendants(findFirst.methodDeclaration(u)).size()));
+  }
+
+  @Test public void deep() {
+    final StringBuilder s = new StringBuilder("a");
+    for (int ¢ = 0; ¢ < 1000; ++¢)
+      s.append(" + (b").append(¢);
+    for (int ¢ = 0; ¢ < 1000; ++¢)
+      s.append(')');
+    final ASTNode n = makeAST.EXPRESSION.from(s + "");
+    int $ = 0;
+    for (@SuppressWarnings("unused") final ASTNode __ : Descendants.of(n))
+      ++$;
+    azzert.that($, greaterThan(2000));
+  }
+}
@@ -0,0 +1,58 @@
+package il.org.spartan.spartanizer.ast.navigate;
+
+import static il.org.spartan.azzert.*;
+
+import java.util.concurrent.atomic.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.ast.factory.*;
+import il.org.spartan.spartanizer.engine.*;
+
+@SuppressWarnings({ "static-method", "javadoc" }) public final class SubtreeSizesTest {
+  private static int traversal(final ASTNode n) {
+    final AtomicInteger $ = new AtomicInteger();
+    n.accept(new ASTVisitor() {
+      @Override public void preVisit(@SuppressWarnings("unused") final ASTNode __) {
+        $.getAndIncrement();
+      }
+    });
+    return $.get();
+  }
+
+  private final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT
+      .from("/** doc */ class A { int f(int a) { if (a > 0) return g(a - 1) + 2; return 3; } }");
+
+  @Test public void agreesWithTraversalOnEveryNode() {
+    u.accept(new ASTVisitor() {
+      @Override public void preVisit(final ASTNode ¢) {
+        azzert.that(SubtreeSizes.of(¢), is(traversal(¢)));
+      }
+    });
+  }
+
+  @Test public void detachedNode() {
+    final ASTNode $ = duplicate.of(findFirst.instanceOf(InfixExpression.class, u));
+    azzert.that(SubtreeSizes.of($), is(traversal($)));
+  }
+
+  @Test public void alternatingUnits() {
+    final CompilationUnit v = (CompilationUnit) makeAST.COMPILATION_UNIT.from("class B { int g() { return 1; } }");
+    for (int ¢ = 0; ¢ < 3; ++¢) {
+      azzert.that(SubtreeSizes.of(u), is(traversal(u)));
+      azzert.that(SubtreeSizes.of(v), is(traversal(v)));
+      azzert.that(SubtreeSizes.of(findFirst.instanceOf(ReturnStatement.class, v)), is(traversal(findFirst.instanceOf(ReturnStatement.class, v))));
+    }
+  }
+
+  @Test public void invalidatedAfterChangeInPlace() {
+    final int before = SubtreeSizes.of(u);
+    final ReturnStatement r = findFirst.instanceOf(ReturnStatement.class, u);
+    SubtreeSizes.invalidate(r);
+    r.setExpression(null);
+    azzert.that(SubtreeSizes.of(u), is(traversal(u)));
+    azzert.that(SubtreeSizes.of(u), lessThan(before));
+  }
+}
@@ -0,0 +1,45 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.eclipse.jface.text.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.ast.navigate.*;
+import il.org.spartan.spartanizer.engine.*;
+
+/** Checks that the tree returned by the fixed point of the applicators is the
+ * tree of their final text, so it may be measured without parsing again.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class ApplicatorFixedPointTest {
+  private static final String CODE = "int f(int a) { int b = a + 1; if (b > 0) { return b; } else { return 0; } }";
+
+  private static void same(final ASTNode actual, final String text) {
+    final ASTNode expected = makeAST.CLASS_BODY_DECLARATIONS.from(text);
+    azzert.that(actual + "", is(expected + ""));
+    azzert.that(count.nodes(actual), is(count.nodes(expected)));
+  }
+
+  @Test public void commandLine() {
+    final CommandLine$Applicator a = new CommandLine$Applicator();
+    final Document d = new Document(CODE);
+    final BodyDeclaration $ = a.fixedPoint(d);
+    azzert.that(d.get(), is(new CommandLine$Applicator().fixedPoint(CODE)));
+    same($, d.get());
+  }
+
+  @Test public void spartanizer() {
+    final Document d = new Document(CODE);
+    final BodyDeclaration $ = new Spartanizer$Applicator().fixedPoint(d);
+    azzert.that(d.get(), is(not(CODE)));
+    same($, d.get());
+  }
+
+  @Test public void unchanged() {
+    final Document d = new Document("int f() { return 0; }");
+    same(new Spartanizer$Applicator().fixedPoint(d), "int f() { return 0; }");
+  }
+}
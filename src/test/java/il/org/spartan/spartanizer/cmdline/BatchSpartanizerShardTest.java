@@ -0,0 +1,63 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class BatchSpartanizerShardTest {
+  private static Path project(final int files) throws IOException {
+    final Path $ = Files.createTempDirectory("spartan-project");
+    for (int ¢ = 0; ¢ < files; ++¢)
+      Files.write($.resolve("A" + ¢ + ".java"), ("class A" + ¢ + " { int f() { int a = " + ¢ + "; return a; } }").getBytes("UTF-8"));
+    return $;
+  }
+
+  private static Set<String> files(final Path checkpoint) throws IOException {
+    final Set<String> $ = new TreeSet<>();
+    for (final Map<?, ?> ¢ : BatchSpartanizer.checkpoint(checkpoint))
+      $.add(¢.get("file") + "");
+    return $;
+  }
+
+  @Test public void shardsAndResume() throws IOException {
+    final String output = "/spartan-shards-" + System.nanoTime();
+    final String project = project(7) + "";
+    BatchSpartanizer.main(new String[] { "-o", output, "-p", project, "p", "--shard", "0/2" });
+    BatchSpartanizer.main(new String[] { "-o", output, "-p", project, "p", "--shard", "1/2" });
+    final Path shard0 = Paths.get("/tmp" + output, "p.shard-0.jsonl"), shard1 = Paths.get("/tmp" + output, "p.shard-1.jsonl");
+    final Set<String> all = new TreeSet<>(files(shard0));
+    azzert.that(all.size(), is(3));
+    all.addAll(files(shard1));
+    azzert.that(all.size(), is(7));
+    azzert.that(Files.readAllLines(Paths.get("/tmp" + output, "p.manifest")).size(), is(7));
+    // A crash in the middle of writing the last line of shard 1
+    final List<String> lines = Files.readAllLines(shard1);
+    final String last = lines.remove(lines.size() - 1);
+    Files.write(shard1, (String.join("\n", lines) + "\n" + last.substring(0, last.length() / 2)).getBytes("UTF-8"));
+    BatchSpartanizer.main(new String[] { "-o", output, "-p", project, "p", "--shard", "1/2", "--resume" });
+    azzert.that(Files.readAllLines(shard1).size(), is(4));
+    azzert.that(files(shard1).size(), is(4));
+  }
+
+  @Test public void manifestRebuilt() throws IOException {
+    final String output = "/spartan-manifest-" + System.nanoTime();
+    final Path project = project(7), manifest = Paths.get("/tmp" + output, "p.manifest");
+    final String[] args = { "-o", output, "-p", project + "", "p", "--shard", "0/1" };
+    BatchSpartanizer.main(args);
+    azzert.that(Files.readAllLines(manifest).size(), is(7));
+    Files.write(project.resolve("B.java"), "class B { int f() { int b = 1; return b; } }".getBytes("UTF-8"));
+    BatchSpartanizer.main(new String[] { "-o", output, "-p", project + "", "p", "--shard", "0/1", "--resume" });
+    azzert.that(Files.readAllLines(manifest).size(), is(7));
+    BatchSpartanizer.main(args);
+    azzert.that(Files.readAllLines(manifest).size(), is(8));
+    azzert.that(files(Paths.get("/tmp" + output, "p.shard-0.jsonl")).size(), is(8));
+  }
+}
@@ -0,0 +1,67 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.plugin.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class CommandLineSelectionTest {
+  private static Path directory(final int files) throws IOException {
+    final Path $ = Files.createTempDirectory("spartan-selection");
+    $.toFile().deleteOnExit();
+    for (int ¢ = 0; ¢ < files; ++¢) {
+      final Path p = Files.write($.resolve("A" + ¢ + ".java"), ("class A" + ¢ + " { int f() { int a = " + ¢ + "; return a; } }").getBytes("UTF-8"));
+      p.toFile().deleteOnExit();
+    }
+    return $;
+  }
+
+  @Test public void lazy() throws IOException {
+    final CommandLineSelection $ = (CommandLineSelection) CommandLineSelection.Util.getFromPath(directory(5) + "");
+    azzert.that($.size(), is(5));
+    for (final WrappedCompilationUnit ¢ : $.inner)
+      azzert.isNull(¢.compilationUnit);
+  }
+
+  @Test public void streamsInOrder() throws IOException {
+    final CommandLineSelection s = (CommandLineSelection) CommandLineSelection.Util.getFromPath(directory(20) + "");
+    final List<String> $ = new ArrayList<>();
+    s.forEach(2, x -> $.add(((AbstractTypeDeclaration) x.types().get(0)).getName() + ""));
+    final List<String> expected = new ArrayList<>();
+    for (final WrappedCompilationUnit ¢ : s.inner) {
+      expected.add(¢.name().replace(".java", ""));
+      azzert.isNull(¢.compilationUnit);
+    }
+    azzert.that($, is(expected));
+  }
+
+  @Test(timeout = 60000) public void errorOfParser() throws IOException {
+    final CommandLineSelection s = (CommandLineSelection) CommandLineSelection.Util.getFromPath(directory(3) + "");
+    s.inner.add(1, new WrappedCompilationUnit((File) null) {
+      @Override public WrappedCompilationUnit build() {
+        throw new OutOfMemoryError("Simulated");
+      }
+    });
+    final List<CompilationUnit> $ = new ArrayList<>();
+    try {
+      s.forEach(2, $::add);
+      assert false;
+    } catch (final OutOfMemoryError x) {
+      azzert.that(x.getMessage(), is("Simulated"));
+    }
+    azzert.that($.size(), is(1));
+  }
+
+  @Test public void sumOfPoolPeaks() {
+    assert CommandLineSelection.sumOfPoolPeaks() > 0;
+  }
+}
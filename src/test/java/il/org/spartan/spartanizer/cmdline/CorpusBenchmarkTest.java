@@ -0,0 +1,38 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** Checks the comparisons and the baseline of {@link CorpusBenchmark}; the
+ * measurement of the corpus itself takes the full fixed point of each case,
+ * several times, and is run only by {@link CorpusBenchmark#main(String[])}.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class CorpusBenchmarkTest {
+  @Test public void regressed() {
+    assert CorpusBenchmark.regressed(130, 100, 0, 25);
+    assert !CorpusBenchmark.regressed(125, 100, 0, 25);
+    assert !CorpusBenchmark.regressed(12, 2, 20, 25);
+    assert !CorpusBenchmark.regressed(-1, 100, 0, 25);
+  }
+
+  @Test public void baseline() throws IOException {
+    final Path p = Files.createTempFile("spartan-baseline", ".csv");
+    p.toFile().deleteOnExit();
+    final CorpusBenchmark b = new CorpusBenchmark(new File("."), new File("."), p);
+    final CorpusBenchmark.Measurement m = CorpusBenchmark.Measurement.parse("A.java,10,2,30,4000,50000");
+    b.write(Collections.singletonList(m));
+    final CorpusBenchmark.Measurement $ = CorpusBenchmark.read(p).get("A.java");
+    azzert.that($.csv(), is(m.csv()));
+    $.values[2] = 40;
+    $.output = "";
+    azzert.that(b.check(Collections.singletonList($)).size(), is(1));
+  }
+}
@@ -0,0 +1,92 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class DaemonTest {
+  private static List<Map<?, ?>> serve(final String requests) throws IOException {
+    final StringWriter out = new StringWriter();
+    new Daemon(2).serve(new BufferedReader(new StringReader(requests)), out);
+    final List<Map<?, ?>> $ = new ArrayList<>();
+    for (final String ¢ : (out + "").split("\n"))
+      $.add((Map<?, ?>) json.parse(¢));
+    return $;
+  }
+
+  @Test public void jsonRoundTrip() {
+    final String $ = "{\"id\":7,\"source\":\"class A {\\n\\t\\\"x\\\" }\",\"groups\":[\"Sorting\",\"Inlining\"],\"tips\":true,\"none\":null}";
+    azzert.that(json.write(json.parse($)), is($));
+  }
+
+  @Test(expected = IllegalArgumentException.class) public void jsonMalformed() {
+    json.parse("{\"id\":}");
+  }
+
+  @Test public void responsesInOrder() throws IOException {
+    final StringBuilder requests = new StringBuilder();
+    for (int ¢ = 0; ¢ < 20; ++¢)
+      requests.append("{\"id\":").append(¢).append(",\"source\":\"class A { int f() { int a = ").append(¢).append("; return a; } }\"}\n");
+    final List<Map<?, ?>> $ = serve(requests + "");
+    azzert.that($.size(), is(20));
+    for (int ¢ = 0; ¢ < 20; ++¢) {
+      azzert.that(json.write($.get(¢).get("id")), is(¢ + ""));
+      azzert.that($.get(¢).get("ok"), is((Object) Boolean.TRUE));
+      azzert.that($.get(¢).get("changed"), is((Object) Boolean.TRUE));
+    }
+  }
+
+  @Test public void badRequest() throws IOException {
+    final Map<?, ?> $ = serve("{\"id\":\"x\"}\n[1]\n").get(0);
+    azzert.that($.get("ok"), is((Object) Boolean.FALSE));
+    azzert.that($.get("id"), is((Object) "x"));
+  }
+
+  @Test public void errorInRequest() throws IOException {
+    final StringBuilder deep = new StringBuilder("{\"id\":1,\"deep\":");
+    for (int ¢ = 0; ¢ < 1 << 20; ++¢)
+      deep.append('[');
+    final List<Map<?, ?>> $ = serve(deep + "\n{\"id\":2,\"source\":\"class A {}\"}\n");
+    azzert.that($.size(), is(2));
+    azzert.that($.get(0).get("ok"), is((Object) Boolean.FALSE));
+    assert ($.get(0).get("error") + "").contains("StackOverflowError") : $.get(0);
+    azzert.that(json.write($.get(1).get("id")), is("2"));
+    azzert.that($.get(1).get("ok"), is((Object) Boolean.TRUE));
+  }
+
+  @Test public void noGroups() throws IOException {
+    final Map<?, ?> $ = serve("{\"source\":\"class A { int f() { int a = 1; return a; } }\",\"groups\":[]}").get(0);
+    azzert.that($.get("changed"), is((Object) Boolean.FALSE));
+  }
+
+  @Test(timeout = 60000, expected = IOException.class) public void closedOutput() throws IOException {
+    final StringBuilder requests = new StringBuilder();
+    for (int ¢ = 0; ¢ < 100; ++¢)
+      requests.append("{\"source\":\"class A {}\"}\n");
+    new Daemon(1).serve(new BufferedReader(new StringReader(requests + "")), new Writer() {
+      @Override public void write(final char[] __, final int from, final int length) throws IOException {
+        throw new IOException("Broken pipe");
+      }
+
+      @Override public void flush() {
+        // Nothing is buffered
+      }
+
+      @Override public void close() {
+        // Nothing to close
+      }
+    });
+  }
+
+  @Test public void threads() {
+    azzert.that(Daemon.threads("3"), is(3));
+    azzert.that(Daemon.threads("three"), is(0));
+  }
+}
@@ -0,0 +1,44 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class ResultCacheTest {
+  private static Path directory() throws IOException {
+    final Path $ = Files.createTempDirectory("spartan-cache");
+    $.toFile().deleteOnExit();
+    return $;
+  }
+
+  @Test public void hitAndMiss() throws IOException {
+    final ResultCache $ = new ResultCache(directory(), "toolbox", 1 << 20);
+    azzert.isNull($.get("class A {}"));
+    $.put("class A {}", "class A{}");
+    azzert.that($.get("class A {}"), is("class A{}"));
+    azzert.that($.hits(), is(1));
+    azzert.that($.misses(), is(1));
+  }
+
+  @Test public void fingerprintSeparates() throws IOException {
+    final Path d = directory();
+    new ResultCache(d, "toolbox", 1 << 20).put("class A {}", "class A{}");
+    azzert.isNull(new ResultCache(d, "another toolbox", 1 << 20).get("class A {}"));
+    azzert.that(new ResultCache(d, "toolbox", 1 << 20).get("class A {}"), is("class A{}"));
+  }
+
+  @Test public void bounded() throws IOException {
+    final ResultCache $ = new ResultCache(directory(), "toolbox", 1000);
+    for (int ¢ = 0; ¢ < 100; ++¢)
+      $.put("class A" + ¢ + " {}", "class A" + ¢ + "{} // ..................................");
+    azzert.that($.get("class A99 {}"), is("class A99{} // .................................."));
+    azzert.isNull($.get("class A0 {}"));
+  }
+}
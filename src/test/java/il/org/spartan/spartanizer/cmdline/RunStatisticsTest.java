@@ -0,0 +1,65 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.dispatch.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class RunStatisticsTest {
+  @Test public void percentiles() {
+    final RunStatistics.Histogram $ = new RunStatistics.Histogram();
+    for (int ¢ = 1; ¢ <= 1000; ++¢)
+      $.add(¢ * 1000L);
+    assert Math.abs($.percentile(0.5) - 500_000) <= 500_000 / 8;
+    assert Math.abs($.percentile(0.99) - 990_000) <= 990_000 / 8;
+    azzert.that($.percentile(1), is(1_000_000L));
+    azzert.that($.max(), is(1_000_000L));
+  }
+
+  @Test public void bucketsAreOrdered() {
+    for (long ¢ = 1; ¢ < 1L << 40; ¢ = ¢ * 3 / 2 + 1)
+      assert RunStatistics.Histogram.lower(RunStatistics.Histogram.index(¢)) <= ¢;
+  }
+
+  @Test public void phasesOfTrimming() throws IOException {
+    final RunStatistics s = new RunStatistics(2, 0);
+    for (int ¢ = 0; ¢ < 5; ++¢) {
+      s.begin("A" + ¢ + ".java");
+      new Trimmer().fixed("class A { int f() { int a = " + ¢ + "; return a; } }");
+      s.end();
+    }
+    RunStatistics.lap(RunStatistics.Phase.PARSE);
+    azzert.that(s.files(), is(5L));
+    final String summary = s.summary();
+    assert summary.contains("parse") && summary.contains("p99") : summary;
+    final Path prefix = Files.createTempDirectory("spartan-statistics").resolve("run");
+    s.write(prefix + "");
+    final List<String> lines = Files.readAllLines(Paths.get(prefix + ".slowest.csv"));
+    azzert.that(lines.size(), is(3));
+    assert lines.get(0).startsWith("file,total ms,read ms,parse ms,tip ms,rewrite ms");
+    assert !lines.get(1).endsWith(",0") : lines.get(1);
+  }
+
+  @Test public void tipsOfParallelMembers() throws IOException {
+    final RunStatistics s = new RunStatistics(1, 0);
+    final Trimmer t = new Trimmer();
+    t.parallel = true;
+    t.parallelFrom = 0;
+    s.begin("A.java");
+    t.fixed("class A { int f() { int a = 1; return a; } int g() { int b = 2; return b; } }");
+    s.end();
+    assert t.tips >= 2;
+    final Path prefix = Files.createTempDirectory("spartan-statistics").resolve("run");
+    s.write(prefix + "");
+    final String[] line = Files.readAllLines(Paths.get(prefix + ".slowest.csv")).get(1).split(",");
+    azzert.that(line[line.length - 1], is(t.tips + ""));
+  }
+}
@@ -0,0 +1,83 @@
+package il.org.spartan.spartanizer.cmdline;
+
+import static il.org.spartan.azzert.*;
+import static java.nio.charset.StandardCharsets.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class UnifiedDiffTest {
+  private static String side(final List<String> script, final char omitted) {
+    final StringBuilder $ = new StringBuilder();
+    for (final String ¢ : script)
+      if (¢.charAt(0) != omitted)
+        $.append(¢.endsWith(UnifiedDiff.NO_NEWLINE) ? ¢.substring(1, ¢.length() - UnifiedDiff.NO_NEWLINE.length()) : ¢.substring(1) + "\n");
+    return $ + "";
+  }
+
+  private static void roundTrip(final String before, final String after) {
+    final List<String> $ = UnifiedDiff.script(UnifiedDiff.lines(before), UnifiedDiff.lines(after));
+    azzert.that(side($, '+'), is(before));
+    azzert.that(side($, '-'), is(after));
+  }
+
+  @Test public void unchanged() {
+    azzert.that(UnifiedDiff.of("A", "class A {}\n", "class A {}\n"), is(""));
+  }
+
+  @Test public void oneLine() {
+    azzert.that(UnifiedDiff.of("A", "class A {\n  int f() {\n    int a = 1;\n    return a;\n  }\n}\n",
+        "class A {\n  int f() {\n    return 1;\n  }\n}\n"), is("--- a/A\n+++ b/A\n@@ -1,6 +1,5 @@\n class A {\n   int f() {\n-    int a = 1;\n-    return a;\n+    return 1;\n   }\n }\n"));
+  }
+
+  @Test public void noNewline() {
+    azzert.that(UnifiedDiff.of("A", "a\nb", "a\nc"),
+        is("--- a/A\n+++ b/A\n@@ -1,2 +1,2 @@\n a\n-b\n\\ No newline at end of file\n+c\n\\ No newline at end of file\n"));
+    azzert.that(UnifiedDiff.of("A", "a\nb\n", "a\nb"), is("--- a/A\n+++ b/A\n@@ -1,2 +1,2 @@\n a\n-b\n+b\n\\ No newline at end of file\n"));
+    roundTrip("a\nb", "a\nb\n");
+    roundTrip("", "a");
+  }
+
+  @Test public void hunks() {
+    final StringBuilder before = new StringBuilder(), after = new StringBuilder();
+    for (int ¢ = 0; ¢ < 40; ++¢) {
+      before.append("line ").append(¢).append('\n');
+      after.append(¢ == 5 || ¢ == 30 ? "changed " : "line ").append(¢).append('\n');
+    }
+    final String $ = UnifiedDiff.of("A", before + "", after + "");
+    azzert.that($.split("\n@@").length - 1, is(2));
+    assert $.contains("@@ -3,7 +3,7 @@") : $;
+    roundTrip(before + "", after + "");
+  }
+
+  @Test public void corpus() throws IOException {
+    final File[] fs = new File("laconization-cases").listFiles((__, name) -> name.endsWith(".java"));
+    if (fs == null)
+      return;
+    for (final File ¢ : fs) {
+      final File expected = new File("laconization-cases-results", ¢.getName());
+      if (expected.exists())
+        roundTrip(new String(Files.readAllBytes(¢.toPath()), UTF_8), new String(Files.readAllBytes(expected.toPath()), UTF_8));
+    }
+  }
+
+  @Test public void gzip() throws IOException {
+    final Path p = Files.createTempFile("spartan", ".diff.gz");
+    p.toFile().deleteOnExit();
+    final String $ = UnifiedDiff.of("A", "a\nb\n", "a\nc\n");
+    try (PrintWriter w = UnifiedDiff.writer(p + "", true)) {
+      w.print($);
+    }
+    try (BufferedReader r = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(p)), UTF_8))) {
+      azzert.that(r.readLine(), is("--- a/A"));
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.engine.*;
+import il.org.spartan.spartanizer.tippers.*;
+import il.org.spartan.spartanizer.tipping.*;
+
+/** Checks that tippers declared by {@link Toolbox#disjoint(Class...)} never
+ * tip the same node, and that {@link Toolbox#adaptive()} only changes their
+ * order, and never the output.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class AdaptiveToolboxTest {
+  private static final String CODE = "class A { int f(int x) { int a = 2 * 3 + 6 / 2 + 7 % 3; ++a; return a; } "
+      + "boolean g(String s) { return Boolean.valueOf(true) && \"a\".equals(s) && !(x > 1); } "
+      + "@SuppressWarnings(value = \"x\") double h(int x) { return (double) x + (long) x + s.toString().length(); } }";
+
+  private static List<String> corpus() throws IOException {
+    final List<String> $ = new ArrayList<>(Collections.singletonList(CODE));
+    final File[] fs = new File("laconization-cases").listFiles((__, name) -> name.endsWith(".java"));
+    if (fs != null)
+      for (final File ¢ : fs)
+        $.add(new String(Files.readAllBytes(¢.toPath()), "UTF-8"));
+    return $;
+  }
+
+  @Test public void runs() {
+    final List<Tipper<? extends ASTNode>> ts = Arrays.asList(new PrefixPlusRemove(), new PrefixIncrementDecrementReturn(), new PrefixNotPushdown());
+    final List<Set<Class<?>>> gs = Toolbox.defaultInstance().disjoint;
+    azzert.that(Arrays.toString(TipperOrdering.runs(ts, gs)), is("[0, 3, 0]"));
+    azzert.isNull(TipperOrdering.runs(Arrays.asList(new PrefixNotPushdown(), new PrefixPlusRemove()), gs));
+  }
+
+  @Test public void disjoint() throws IOException {
+    final Toolbox t = Toolbox.defaultInstance();
+    for (final String code : corpus())
+      makeAST.COMPILATION_UNIT.from(code).accept(new ASTVisitor() {
+        @Override @SuppressWarnings("unchecked") public void preVisit(final ASTNode n) {
+          for (final Set<Class<?>> g : t.disjoint) {
+            final List<String> hits = new ArrayList<>();
+            for (final Tipper<? extends ASTNode> ¢ : t.get(n))
+              if (g.contains(¢.getClass()) && ((Tipper<ASTNode>) ¢).canTip(n))
+                hits.add(¢.myName());
+            assert hits.size() <= 1 : hits + " all tip " + n;
+          }
+        }
+      });
+  }
+
+  /** Samples, which try tippers in their declared order, are made only while
+   * warming up; the outputs are compared once all calls try the tippers in
+   * the order found, or in reversed runs, which are sure to differ from the
+   * declared order */
+  @Test public void sameOutput() throws IOException {
+    final List<String> corpus = corpus();
+    for (final boolean reversed : new boolean[] { false, true }) {
+      final Toolbox declared = Toolbox.defaultInstance(), adaptive = declared.adaptive(1, Integer.MAX_VALUE);
+      for (final String ¢ : corpus)
+        new Trimmer(adaptive).fixed(¢);
+      adaptive.settle(reversed);
+      if (reversed)
+        assert reordered(declared, adaptive);
+      for (final String ¢ : corpus)
+        azzert.that(new Trimmer(adaptive).fixed(¢), is(new Trimmer(declared).fixed(¢)));
+    }
+  }
+
+  private static boolean reordered(final Toolbox declared, final Toolbox adaptive) {
+    for (int ¢ = 0; ¢ < 2 * ASTNode.TYPE_METHOD_REFERENCE; ++¢)
+      if (!declared.order(¢).equals(adaptive.order(¢)))
+        return true;
+    return false;
+  }
+
+  @Test public void sameTippers() throws IOException {
+    final Toolbox declared = Toolbox.defaultInstance(), adaptive = declared.adaptive(1, 1);
+    for (final String ¢ : corpus())
+      new Trimmer(adaptive).fixed(¢);
+    for (int i = 0; i < 2 * ASTNode.TYPE_METHOD_REFERENCE; ++i) {
+      final List<Tipper<?>> before = declared.order(i), after = adaptive.order(i);
+      azzert.that(after.size(), is(before.size()));
+      assert new HashSet<>(after).equals(new HashSet<>(before));
+      for (int ¢ = 0; ¢ < before.size(); ++¢)
+        if (before.get(¢) != after.get(¢))
+          assert group(declared, before.get(¢)) != null && group(declared, before.get(¢)) == group(declared, after.get(¢)) : before + " vs. " + after;
+    }
+  }
+
+  private static Set<Class<?>> group(final Toolbox t, final Tipper<?> x) {
+    for (final Set<Class<?>> $ : t.disjoint)
+      if ($.contains(x.getClass()))
+        return $;
+    return null;
+  }
+
+  @Test public void shared() {
+    final Toolbox $ = Toolbox.defaultInstance().adaptive();
+    azzert.that($.fingerprint(), is(Toolbox.defaultInstance().fingerprint()));
+    assert $ != Toolbox.defaultInstance().adaptive();
+  }
+}
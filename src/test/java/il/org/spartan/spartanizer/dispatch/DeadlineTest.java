@@ -0,0 +1,65 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.tipping.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class DeadlineTest {
+  static final class Slow extends Tipper<Block> implements TipperCategory.Idiomatic {
+    @Override public boolean canTip(final Block __) {
+      return true;
+    }
+
+    @Override public String description(final Block __) {
+      return "Slow";
+    }
+
+    @Override public Tip tip(final Block __) {
+      try {
+        Thread.sleep(20);
+      } catch (final InterruptedException x) {
+        throw new AssertionError(x);
+      }
+      return null;
+    }
+  }
+
+  @After public void stop() {
+    Deadline.stop();
+  }
+
+  @Test public void generous() {
+    final String $ = new Trimmer().fixed("class A { int f() { int a = 1; return a; } }");
+    Deadline.start(60_000, 60_000);
+    azzert.that(new Trimmer().fixed("class A { int f() { int a = 1; return a; } }"), is($));
+  }
+
+  @Test public void file() throws InterruptedException {
+    Deadline.start(1, 0);
+    Thread.sleep(5);
+    try {
+      new Trimmer().fixed("class A { int f() { int a = 1; return a; } }");
+    } catch (final Deadline.Expired x) {
+      assert x.millis >= 1;
+      return;
+    }
+    azzert.fail("Deadline did not expire");
+  }
+
+  @Test public void tipper() {
+    Deadline.start(0, 5);
+    try {
+      new Trimmer(Toolbox.make(Block.class, new Slow())).fixed("class A { int f() { return 1; } }");
+    } catch (final Deadline.Expired x) {
+      azzert.that(x.tipper, is("Slow"));
+      return;
+    }
+    azzert.fail("Deadline did not expire");
+  }
+}
@@ -0,0 +1,48 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.engine.*;
+import il.org.spartan.utils.*;
+
+/** Checks that {@link Trimmer#disjointRounds} reaches the same fixed point as
+ * the single pass rounds, in no more rounds, and in fewer rounds on some of
+ * the files of <code>laconization-cases</code>.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class DisjointRoundsTest {
+  private static Trimmer disjoint() {
+    final Trimmer $ = new Trimmer();
+    $.disjointRounds = true;
+    return $;
+  }
+
+  @Test public void scheduler() {
+    final List<Range> rs = Arrays.asList(new Range(0, 10), new Range(2, 3), new Range(3, 5), new Range(4, 8), new Range(9, 12), new Range(12, 20));
+    azzert.that(IntervalScheduler.maximalDisjoint(rs, x -> x), is(Arrays.asList(new Range(2, 3), new Range(3, 5), new Range(9, 12), new Range(12, 20))));
+  }
+
+  @Test public void method() {
+    TrimmerModes.same("method", "class A { int f(int a) { int b = a + 1; if (b > 0) { return b; } else { return 0; } } int g() { int c = 2; return c; } }",
+        disjoint());
+  }
+
+  @Test public void corpus() throws IOException {
+    final Map<String, String> corpus = TrimmerModes.corpus();
+    Assume.assumeFalse("No laconization-cases", corpus.isEmpty());
+    final List<String> fewer = new ArrayList<>();
+    for (final Map.Entry<String, String> ¢ : corpus.entrySet()) {
+      final Trimmer $ = disjoint(), single = TrimmerModes.same(¢.getKey(), ¢.getValue(), $);
+      assert $.rounds <= single.rounds : ¢.getKey() + ": " + $.rounds + " disjoint rounds, " + single.rounds + " single pass rounds";
+      if ($.rounds < single.rounds)
+        fewer.add(¢.getKey());
+    }
+    assert !fewer.isEmpty();
+  }
+}
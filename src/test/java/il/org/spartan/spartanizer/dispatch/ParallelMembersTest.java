@@ -0,0 +1,55 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.engine.*;
+
+/** Checks that {@link Trimmer#parallel} reaches a fixed point, the same as
+ * that of sequential rounds when members do not interact.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class ParallelMembersTest {
+  private static Trimmer parallel() {
+    final Trimmer $ = new Trimmer();
+    $.parallel = true;
+    $.parallelFrom = 0;
+    return $;
+  }
+
+  @Test public void inBody() {
+    final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT.from("class A { int a = 1; int f() { return 2; } }");
+    final TypeDeclaration t = (TypeDeclaration) u.types().get(0);
+    assert !Trimmer.inBody(t.getFields()[0]);
+    assert !Trimmer.inBody(t.getMethods()[0]);
+    assert Trimmer.inBody(t.getMethods()[0].getBody().statements().get(0));
+  }
+
+  @Test public void same() {
+    final String code = "class A { int a; int f(int x) { int b = x + 1; if (b > 0) { return b; } else { return 0; } } "
+        + "int g() { int c = 2; return c; } static { int d = 3; System.out.println(d); } }";
+    final Trimmer $ = parallel();
+    azzert.that($.fixed(code), is(new Trimmer().fixed(code)));
+    assert $.tips > 0;
+  }
+
+  @Test public void small() {
+    final Trimmer $ = parallel();
+    $.parallelFrom = Integer.MAX_VALUE;
+    final String code = "class A { int f() { int a = 1; return a; } int g() { return 2; } }";
+    azzert.that($.fixed(code), is(new Trimmer().fixed(code)));
+  }
+
+  /** The output of trimming members in parallel is that of sequential rounds,
+   * on every file of the corpus */
+  @Test public void corpus() throws IOException {
+    for (final Map.Entry<String, String> ¢ : TrimmerModes.corpus().entrySet())
+      TrimmerModes.same(¢.getKey(), ¢.getValue(), parallel());
+  }
+}
@@ -0,0 +1,19 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** Checks the tables computed at startup; the time to the first tip is
+ * measured by {@link il.org.spartan.spartanizer.cmdline.StartupBenchmark}.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class StartupTest {
+  @Test public void nodeTypes() {
+    azzert.that(Toolbox.classToNodeType.get(Block.class), is(Integer.valueOf(ASTNode.BLOCK)));
+    azzert.that(Toolbox.classToNodeType.get(MethodReference.class), is(Integer.valueOf(ASTNode.METHOD_REFERENCE)));
+  }
+}
@@ -0,0 +1,52 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.plugin.PreferencesResources.*;
+import il.org.spartan.spartanizer.tippers.*;
+
+/** @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class ToolboxSnapshotTest {
+  @Test public void shared() {
+    assert Toolbox.defaultInstance() == Toolbox.defaultInstance();
+    assert Toolbox.defaultInstance() == Toolbox.snapshot(EnumSet.allOf(TipperGroup.class));
+  }
+
+  @Test public void sameTippers() {
+    azzert.that(Toolbox.defaultInstance().fingerprint(), is(Toolbox.freshCopyOfAllTippers().fingerprint()));
+  }
+
+  @Test public void byGroups() {
+    final Set<TipperGroup> gs = EnumSet.allOf(TipperGroup.class);
+    gs.remove(TipperGroup.Centification);
+    final Toolbox $ = Toolbox.snapshot(gs);
+    assert $ != Toolbox.defaultInstance();
+    assert $ == Toolbox.snapshot(EnumSet.copyOf(gs));
+    assert $.tippersCount() < Toolbox.defaultInstance().tippersCount();
+  }
+
+  @Test(expected = UnsupportedOperationException.class) public void immutable() {
+    Toolbox.defaultInstance().add(Block.class, new BlockSimplify());
+  }
+
+  @Test public void concurrent() throws InterruptedException, ExecutionException {
+    final ExecutorService s = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Toolbox>> fs = new ArrayList<>();
+      for (int ¢ = 0; ¢ < 32; ++¢)
+        fs.add(s.submit(() -> Toolbox.snapshot(EnumSet.of(TipperGroup.Abbreviation, TipperGroup.Idiomatic))));
+      for (final Future<Toolbox> ¢ : fs)
+        assert ¢.get() == fs.get(0).get();
+    } finally {
+      s.shutdown();
+    }
+  }
+}
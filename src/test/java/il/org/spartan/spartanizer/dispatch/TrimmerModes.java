@@ -0,0 +1,42 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import il.org.spartan.*;
+
+/** What the tests of the modes of {@link Trimmer} share: each mode must reach
+ * the same fixed point as a {@link Trimmer} in its default mode, on the files
+ * of <code>laconization-cases</code>, and on code of their own.
+ * @author Yossi Gil
+ * @since 2016 */
+enum TrimmerModes {
+  ;
+  /** @return the text of each file of <code>laconization-cases</code>, by its
+   *         name; empty if there is no such folder
+   * @throws IOException */
+  static Map<String, String> corpus() throws IOException {
+    final Map<String, String> $ = new TreeMap<>();
+    final File[] fs = new File("laconization-cases").listFiles((__, name) -> name.endsWith(".java"));
+    if (fs != null)
+      for (final File ¢ : fs)
+        $.put(¢.getName(), new String(Files.readAllBytes(¢.toPath()), "UTF-8"));
+    return $;
+  }
+
+  /** Trims code by a trimmer in the mode checked, and by a trimmer in the
+   * default mode, and checks that the outputs are the same
+   * @param name of the code, for the message of a failure
+   * @param code JD
+   * @param mode a trimmer in the mode checked
+   * @return the trimmer in the default mode, whose rounds and tips are those
+   *         of trimming the code */
+  static Trimmer same(final String name, final String code, final Trimmer mode) {
+    final Trimmer $ = new Trimmer();
+    azzert.that(name, mode.fixed(code), is($.fixed(code)));
+    return $;
+  }
+}
@@ -0,0 +1,71 @@
+package il.org.spartan.spartanizer.dispatch;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.engine.*;
+import il.org.spartan.utils.*;
+
+/** Checks that {@link Trimmer#worklist} reaches the same fixed point as rounds
+ * over the entire tree, and that rounds after the first visit only members
+ * which changed, save for the last round, which makes sure no tip is left.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class WorklistTest {
+  /** A method which takes a few rounds, next to methods with nothing to tip */
+  private static final String CODE = "class A { int f(int a) { int b = a + 1; int c = b * 2; int d = c - 3; if (d > 0) { return d; } else { return 0; } } "
+      + "int h0() { return 0; } int h1() { return 1; } int h2() { return 2; } int h3() { return 3; } }";
+
+  /** Counts the nodes of methods named <code>h*</code> visited in rounds
+   * after the first */
+  static final class Counting extends Trimmer {
+    int untouched;
+
+    Counting(final boolean worklist) {
+      this.worklist = worklist;
+    }
+
+    @Override protected <N extends ASTNode> boolean check(final N n) {
+      if (rounds > 1)
+        for (ASTNode ¢ = n; ¢ != null; ¢ = ¢.getParent())
+          if (¢ instanceof MethodDeclaration && ((MethodDeclaration) ¢).getName().getIdentifier().startsWith("h"))
+            ++untouched;
+      return true;
+    }
+  }
+
+  @Test public void scopes() {
+    final String code = "class A { int a = 1; int f() { return 2; } int g() { return 3; } }";
+    final CompilationUnit u = (CompilationUnit) makeAST.COMPILATION_UNIT.from(code);
+    final List<ASTNode> $ = Trimmer.scopes(u,
+        Arrays.asList(new Range(code.indexOf("2"), code.indexOf("2") + 1), new Range(code.indexOf("return 2"), code.indexOf("2;") + 2)));
+    azzert.that($.size(), is(1));
+    azzert.that($.get(0), instanceOf(MethodDeclaration.class));
+    azzert.that(((MethodDeclaration) $.get(0)).getName() + "", is("f"));
+  }
+
+  /** Rounds over the entire tree visit the untouched methods in every round
+   * after the first; a worklist visits them in the last round only */
+  @Test public void untouchedVisitedOnce() {
+    final Counting entire = new Counting(false), local = new Counting(true);
+    entire.fixed(CODE);
+    TrimmerModes.same("CODE", CODE, local);
+    assert entire.rounds > 2 : entire.rounds;
+    assert local.untouched > 0;
+    azzert.that(entire.untouched, is((entire.rounds - 1) * local.untouched));
+  }
+
+  @Test public void corpus() throws IOException {
+    for (final Map.Entry<String, String> ¢ : TrimmerModes.corpus().entrySet()) {
+      final Trimmer local = new Trimmer();
+      local.worklist = true;
+      TrimmerModes.same(¢.getKey(), ¢.getValue(), local);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package il.org.spartan.spartanizer.engine;
+
+import static il.org.spartan.azzert.*;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.dispatch.*;
+
+/** The tests are compiled for JavaSE-1.8, so <code>jdk.jfr</code> is used by
+ * reflection only, and is skipped where it is absent.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class EventsTest {
+  private static final String CODE = "class A { int f() { int a = 1; return a; } }";
+
+  @Test public void disabledByDefault() {
+    for (final Events.Kind ¢ : Events.Kind.values())
+      azzert.isNull(Events.begin(¢));
+  }
+
+  @Test public void recorded() throws IOException, ReflectiveOperationException {
+    Assume.assumeTrue("No jdk.jfr, or no FlightEvents in this build", Events.available());
+    final Path p = Files.createTempFile("spartan", ".jfr");
+    p.toFile().deleteOnExit();
+    final Object r = Class.forName("jdk.jfr.Recording").newInstance();
+    try {
+      for (final String ¢ : new String[] { "Parse", "Tip", "Rewrite", "Round" })
+        call(r, "enable", "il.org.spartan." + ¢);
+      call(r, "start");
+      Events.file("A.java");
+      new Trimmer().fixed(CODE);
+      call(r, "stop");
+      call(r, "dump", p);
+    } finally {
+      call(r, "close");
+    }
+    final Set<String> names = new HashSet<>();
+    for (final Object ¢ : (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class).invoke(null, p)) {
+      names.add(call(call(¢, "getEventType"), "getName") + "");
+      azzert.that(call(¢, "getString", "file") + "", is("A.java"));
+      assert ((Integer) call(¢, "getInt", "round")).intValue() > 0;
+    }
+    azzert.that(names.size(), is(4));
+  }
+
+  /** Calls the public method of the given name which takes the arguments */
+  private static Object call(final Object target, final String name, final Object... args) throws ReflectiveOperationException {
+    for (final Method $ : target.getClass().getMethods())
+      if ($.getName().equals(name) && accepts($.getParameterTypes(), args))
+        return $.invoke(target, args);
+    throw new NoSuchMethodException(name);
+  }
+
+  private static boolean accepts(final Class<?>[] types, final Object[] args) {
+    if (types.length != args.length)
+      return false;
+    for (int ¢ = 0; ¢ < args.length; ++¢)
+      if (!types[¢].isInstance(args[¢]))
+        return false;
+    return true;
+  }
+}
@@ -0,0 +1,126 @@
+package il.org.spartan.spartanizer.engine;
+
+import static il.org.spartan.azzert.*;
+import static il.org.spartan.spartanizer.engine.into.*;
+
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.ast.navigate.*;
+import il.org.spartan.spartanizer.ast.safety.*;
+
+/** Checks that {@link ExpressionComparator#sort(List)}, which compares
+ * precomputed sort keys, orders operands exactly as comparing the operands
+ * themselves does.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "javadoc", "static-method" }) public final class ExpressionComparatorSortTest {
+  private static String terms(final int n) {
+    final StringBuilder $ = new StringBuilder("a0");
+    final Random r = new Random(n);
+    for (int ¢ = 1; ¢ < n; ++¢)
+      switch (r.nextInt(6)) {
+        case 0:
+          $.append(" + ").append(r.nextInt(100));
+          break;
+        case 1:
+          $.append(" + f(a").append(¢).append(", ").append(r.nextInt(10)).append(")");
+          break;
+        case 2:
+          $.append(" + A").append(r.nextInt(50));
+          break;
+        case 3:
+          $.append(" + (b").append(¢).append(" * c)");
+          break;
+        case 4:
+          $.append(" + -").append(r.nextInt(10));
+          break;
+        default:
+          $.append(" + x").append(r.nextInt(1000));
+      }
+    return $ + "";
+  }
+
+  private static List<Expression> operands(final String ¢) {
+    return extract.allOperands(az.infixExpression(e(¢)));
+  }
+
+  /** The original {@link ExpressionComparator#ADDITION}, which inspects the
+   * operands in every comparison */
+  private static int referenceAddition(final Expression e1, final Expression e2) {
+    int $;
+    return ($ = ExpressionComparator.literalCompare(e1, e2)) != 0 || ($ = ExpressionComparator.nodesCompare(e1, e2)) != 0
+        || ($ = ExpressionComparator.characterCompare(e1, e2)) != 0 || ($ = ExpressionComparator.alphabeticalCompare(e1, e2)) != 0 ? $ : 0;
+  }
+
+  /** The original {@link ExpressionComparator#PRUDENT} */
+  private static int referencePrudent(final Expression e1, final Expression e2) {
+    int $;
+    return ($ = ExpressionComparator.literalCompare(e1, e2)) != 0 || ($ = ExpressionComparator.nodesCompare(e1, e2)) != 0
+        || ($ = ExpressionComparator.characterCompare(e1, e2)) != 0 ? $ : 0;
+  }
+
+  /** The original {@link ExpressionComparator#MULTIPLICATION} */
+  private static int referenceMultiplication(final Expression e1, final Expression e2) {
+    int $;
+    return ($ = ExpressionComparator.literalCompare(e2, e1)) == 0 && ($ = ExpressionComparator.nodesCompare(e1, e2)) == 0
+        && ($ = ExpressionComparator.characterCompare(e1, e2)) == 0 && ($ = ExpressionComparator.alphabeticalCompare(e1, e2)) == 0 ? 0 : $;
+  }
+
+  /** The original sort, comparing operands rather than their keys */
+  private static boolean referenceSort(final Comparator<Expression> c, final List<Expression> xs) {
+    boolean $ = false;
+    for (int i = 0, size = xs.size(); i < size; ++i)
+      for (int j = 0; j < size - 1; ++j) {
+        final Expression e0 = xs.get(j);
+        final Expression e1 = xs.get(j + 1);
+        if (iz.negative(e0) || iz.negative(e1) || c.compare(e0, e1) <= 0)
+          continue;
+        xs.remove(j);
+        xs.remove(j);
+        xs.add(j, e0);
+        xs.add(j, e1);
+        $ = true;
+      }
+    return $;
+  }
+
+  private static void identical(final ExpressionComparator c, final Comparator<Expression> reference, final String s) {
+    final List<Expression> expected = operands(s);
+    final List<Expression> actual = operands(s);
+    azzert.that(c.sort(actual), is(referenceSort(reference, expected)));
+    azzert.that(actual + "", is(expected + ""));
+  }
+
+  @Test public void additionIdentical() {
+    identical(ExpressionComparator.ADDITION, ExpressionComparatorSortTest::referenceAddition, terms(200));
+  }
+
+  @Test public void additionIdenticalToOriginal() {
+    final List<Expression> expected = operands(terms(200));
+    final List<Expression> actual = operands(terms(200));
+    referenceSort(ExpressionComparatorSortTest::referenceAddition, expected);
+    ExpressionComparator.ADDITION.sort(actual);
+    azzert.that(actual + "", is(expected + ""));
+  }
+
+  @Test public void additionIdenticalShort() {
+    identical(ExpressionComparator.ADDITION, ExpressionComparatorSortTest::referenceAddition, "x + 1 + f(a,b) + B + 2 + y");
+  }
+
+  @Test public void alreadySorted() {
+    final List<Expression> $ = operands("a + b + c");
+    azzert.nay(ExpressionComparator.ADDITION.sort($));
+  }
+
+  @Test public void multiplicationIdentical() {
+    identical(ExpressionComparator.MULTIPLICATION, ExpressionComparatorSortTest::referenceMultiplication, terms(200).replace('+', '*'));
+  }
+
+  @Test public void prudentIdentical() {
+    identical(ExpressionComparator.PRUDENT, ExpressionComparatorSortTest::referencePrudent, terms(200));
+  }
+}
@@ -28,6 +28,14 @@ import il.org.spartan.spartanizer.cmdline.*;
     azzert.that(find("a+b"), is(EXPRESSION_LOOK_ALIKE));
   }
 
+  @Test public void findClass() {
+    azzert.that(find("class A {}"), is(COMPILATION_UNIT_LOOK_ALIKE));
+  }
+
+  @Test public void findCommentedExpression() {
+    azzert.that(find("a /* ; { */ + b // }"), is(EXPRESSION_LOOK_ALIKE));
+  }
+
   @Test public void findDivision() {
     azzert.that(GuessedContext.find("a/b"), is(EXPRESSION_LOOK_ALIKE));
   }
@@ -68,6 +76,10 @@ import il.org.spartan.spartanizer.cmdline.*;
     azzert.that(find("'\"'"), is(EXPRESSION_LOOK_ALIKE));
   }
 
+  @Test public void findLiteral5() {
+    azzert.that(find("\"class A { int a; }\""), is(EXPRESSION_LOOK_ALIKE));
+  }
+
   @Test public void findMethod() {
     azzert.that(find("f() { a(); b();}"), is(METHOD_LOOKALIKE));
   }
@@ -0,0 +1,91 @@
+package il.org.spartan.spartanizer.engine;
+
+import static il.org.spartan.azzert.*;
+
+import java.util.*;
+
+import org.eclipse.jdt.core.dom.rewrite.*;
+import org.eclipse.text.edits.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.utils.*;
+
+/** Checks that collecting tips in a {@link TipTree} leaves exactly the tips, in
+ * the same order, as {@link Range#pruneIncluders(List)} on a plain list.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "javadoc", "static-method" }) public final class TipTreeTest {
+  private static Tip tip(final int from, final int to) {
+    return new Tip("", new Range(from, to), null) {
+      @Override public void go(@SuppressWarnings("unused") final ASTRewrite __, @SuppressWarnings("unused") final TextEditGroup ___) {
+        // Never applied
+      }
+    };
+  }
+
+  /** Ranges as a visitor would produce them: mostly nested in, or following,
+   * recent ones, with some duplicates */
+  private static List<Tip> tips(final int n) {
+    final List<Tip> $ = new ArrayList<>();
+    final Random r = new Random(n);
+    for (int ¢ = 0, from = 0; ¢ < n; ++¢) {
+      from += r.nextInt(3) == 0 ? 0 : r.nextInt(40);
+      final Tip t = tip(from, from + r.nextInt(200));
+      $.add(t);
+      if (r.nextInt(10) == 0)
+        $.add(tip(t.from, t.to));
+    }
+    return $;
+  }
+
+  private static List<Tip> reference(final List<Tip> ts) {
+    final List<Tip> $ = new ArrayList<>();
+    for (final Tip ¢ : ts) {
+      ¢.pruneIncluders($);
+      $.add(¢);
+    }
+    return $;
+  }
+
+  private static List<Tip> tree(final List<Tip> ts) {
+    final TipTree $ = new TipTree();
+    for (final Tip ¢ : ts)
+      $.prune(¢);
+    return $;
+  }
+
+  @Test public void clear() {
+    final List<Tip> $ = tree(tips(100));
+    $.clear();
+    azzert.that($.size(), is(0));
+    $.add(tip(1, 2));
+    azzert.that($.size(), is(1));
+  }
+
+  @Test public void identical() {
+    final List<Tip> ts = tips(2000);
+    azzert.that(new ArrayList<>(tree(ts)), is(reference(ts)));
+  }
+
+  @Test public void includers() {
+    final TipTree $ = new TipTree();
+    $.add(tip(0, 100));
+    $.add(tip(10, 20));
+    $.add(tip(15, 50));
+    $.add(tip(30, 40));
+    azzert.that($.includers(new Range(16, 19)).size(), is(3));
+    azzert.that($.includers(new Range(5, 19)).size(), is(1));
+    azzert.that($.includers(new Range(101, 102)).size(), is(0));
+  }
+
+  @Test public void pruneKeepsOrder() {
+    final Tip t1 = tip(0, 10), t2 = tip(20, 30), t3 = tip(40, 50), t4 = tip(21, 22);
+    final TipTree $ = new TipTree();
+    $.prune(t1);
+    $.prune(t2);
+    $.prune(t3);
+    $.prune(t4);
+    azzert.that($, is(Arrays.asList(t1, t3, t4)));
+  }
+}
@@ -0,0 +1,50 @@
+package il.org.spartan.spartanizer.research;
+
+import static il.org.spartan.azzert.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+import il.org.spartan.spartanizer.ast.navigate.*;
+import il.org.spartan.spartanizer.engine.*;
+
+/** Checks that the sizes of a method are counted once, however many times it
+ * is parsed, and that methods of identically named types in different
+ * packages are counted apart.
+ * @author Ori Marcovitch
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class LoggerTest {
+  private static final String SMALL = "package logger.small; class LoggerTestBuilder { int build(int a) { return a; } }";
+  private static final String LARGE = "package logger.large; class LoggerTestBuilder { int build(int a) { int b = a + 1; int c = b * 2; return c; } }";
+
+  private static MethodDeclaration method(final String code) {
+    return ((TypeDeclaration) ((CompilationUnit) makeAST.COMPILATION_UNIT.from(code)).types().get(0)).getMethods()[0];
+  }
+
+  private static Logger.MethodRecord logged(final String code) {
+    final MethodDeclaration $ = method(code);
+    Logger.logNP(lisp.last(step.statements($.getBody())), "LoggerTest");
+    return Logger.merged().methodsStatistics.get(Logger.methodKey($));
+  }
+
+  @Test public void sizesOnce() {
+    final MethodDeclaration m = method(SMALL);
+    final int before = logged(SMALL).nps.size();
+    final Logger.MethodRecord $ = logged(SMALL);
+    azzert.that($.numParameters, is(1));
+    azzert.that($.numStatements, is(metrics.countStatements(m)));
+    azzert.that($.numExpressions, is(metrics.countExpressions(m)));
+    azzert.that($.nps.size(), is(before + 1));
+  }
+
+  @Test public void samePathInDifferentPackages() {
+    assert !Logger.methodKey(method(SMALL)).equals(Logger.methodKey(method(LARGE)));
+    final Logger.MethodRecord small = logged(SMALL), large = logged(LARGE);
+    azzert.that(small.numStatements, is(metrics.countStatements(method(SMALL))));
+    azzert.that(large.numStatements, is(metrics.countStatements(method(LARGE))));
+    azzert.that(large.nps.size(), is(1));
+    assert small.numNPStatements <= small.numStatements;
+    assert large.numNPStatements <= large.numStatements;
+  }
+}
@@ -0,0 +1,54 @@
+package il.org.spartan.spartanizer.research;
+
+import static org.junit.Assert.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.spartanizer.ast.navigate.*;
+import il.org.spartan.spartanizer.ast.safety.*;
+import il.org.spartan.utils.*;
+
+/** Tests of {@link Matcher} block matching, with the
+ * {@link StatementsFingerprint} prefilter
+ * @author Ori Marcovitch
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "boxing" }) public class MatcherTest {
+  private static Block pattern(final String ¢) {
+    return az.block(wizard.ast(TipperFactory.reformat$Bs(¢)));
+  }
+
+  private static Block block(final String ¢) {
+    return az.block(wizard.ast(¢));
+  }
+
+  @Test public void matchesInTheMiddle() {
+    final Pair<Integer, Integer> $ = Matcher.getBlockMatching(pattern("if($X == null) return null; return $X2;"),
+        block("f(); g(); if(a == null) return null; return b; h();"));
+    assertEquals(2, $.first.intValue());
+    assertEquals(4, $.second.intValue());
+  }
+
+  @Test public void shapeMismatchIsRejected() {
+    assertFalse(Matcher.blockMatches(pattern("if($X == null) return null; return $X2;"), block("f(); g(); if(a != null) return null; h();")));
+  }
+
+  @Test public void anchorRepeats() {
+    final Pair<Integer, Integer> $ = Matcher.getBlockMatching(pattern("f(); f(); g();"), block("f(); f(); f(); g();"));
+    assertEquals(1, $.first.intValue());
+  }
+
+  @Test public void wildcardStatements() {
+    final Pair<Integer, Integer> $ = Matcher.getBlockMatching(pattern("$B1 return $X;"), block("int a = 1; while(a > 0) --a; return a;"));
+    assertEquals(1, $.first.intValue());
+  }
+
+  @Test public void onlyWildcards() {
+    assertTrue(Matcher.blockMatches(pattern("$B1 $B2"), block("f(); g();")));
+  }
+
+  @Test public void patternLongerThanBlock() {
+    assertFalse(Matcher.blockMatches(pattern("f(); g(); h();"), block("f(); g();")));
+    assertNull(Matcher.getBlockMatching(pattern("f(); g(); h();"), block("f(); g();")));
+  }
+}
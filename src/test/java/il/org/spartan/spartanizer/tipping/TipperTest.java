@@ -0,0 +1,40 @@
+package il.org.spartan.spartanizer.tipping;
+
+import static il.org.spartan.azzert.*;
+
+import org.eclipse.jdt.core.dom.*;
+import org.junit.*;
+
+import il.org.spartan.*;
+
+/** Checks that all instances of a class of tippers share the class of
+ * operands found by reflection.
+ * @author Yossi Gil
+ * @since 2016 */
+@SuppressWarnings({ "static-method", "javadoc" }) public final class TipperTest {
+  /** A class of tippers of its own, for the test */
+  static final class Fresh extends Tipper<Block> {
+    @Override public boolean canTip(@SuppressWarnings("unused") final Block __) {
+      return false;
+    }
+
+    @Override public String description(@SuppressWarnings("unused") final Block __) {
+      return description();
+    }
+
+    @Override public String description() {
+      return "A tipper of no block";
+    }
+  }
+
+  @Test public void operandsClass() {
+    azzert.that(Tipper.operandsClass(Fresh.class), is(Block.class));
+  }
+
+  @Test public void operandsClassSharedByInstances() {
+    final Class<Block> $ = new Fresh().myAbstractOperandsClass();
+    azzert.that($, is(Block.class));
+    assert new Fresh().myAbstractOperandsClass() == $;
+    assert new Fresh().myActualOperandsClass() == $;
+  }
+}